@@ -0,0 +1,90 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 감사(Auditing) 방식별 회원 한 건 등록 비용 : listener(AuditingEntityListener) vs flush(FlushAuditingInterceptor)
+ * - 한 번 호출에 ROWS건을 한 트랜잭션에서 persist + flush (JDBC 배치) -> 결과는 행 하나당 시간
+ * - 감사 외의 비용(INSERT, 식별자 할당)은 두 방식이 같으므로 차이가 행당 감사 비용이다
+ * ./gradlew jmh -PjmhIncludes=AuditingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditingBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"listener", "flush"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transaction;
+    private EntityManager em;
+    private MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:auditing;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.root=warn",
+                        "--datajpa.auditing.mode=" + mode);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        em = context.getBean(EntityManager.class); //트랜잭션에 묶인 엔티티 매니저를 찾아주는 공유 프록시
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteMembers() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void persist() {
+        transaction.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new Member("audit" + i, i % 60));
+            }
+            em.flush();
+            em.clear();
+        });
+    }
+}
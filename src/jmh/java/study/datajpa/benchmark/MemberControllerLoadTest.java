@@ -0,0 +1,120 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemberController 부하 테스트 : 플랫폼 스레드(톰캣 스레드 풀) vs 가상 스레드(virtual 프로필)
+ * - 모드마다 별도 JVM에서 실행해서 힙/스레드 수를 비교한다 (JMH가 아닌 main)
+ * - ./gradlew loadTest -Pmode=platform, ./gradlew loadTest -Pmode=virtual -PloadTestJavaHome=/path/to/jdk21 (Gradle의 JVM이 아니라 지정한 JDK로 실행)
+ * - 동시 요청 수(concurrency)가 커넥션 풀 크기(10)보다 훨씬 많아서 대부분의 요청이 커넥션을 기다리는 상황을 만든다
+ */
+public class MemberControllerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String mode = System.getProperty("mode", "platform");
+        int concurrency = Integer.getInteger("concurrency", 1000);
+        int requests = Integer.getInteger("requests", 50000);
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(DataJpaApplication.class);
+        if ("virtual".equals(mode)) {
+            builder.profiles("virtual");
+        }
+        ConfigurableApplicationContext context = builder.run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn");
+        try {
+            seed(context);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            run(mode, URI.create("http://localhost:" + port + "/members?page=3&size=20"), concurrency, requests);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        Team team = context.getBean(TeamRepository.class).save(new Team("teamA"));
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            members.add(new Member("member" + i, i % 60, team));
+        }
+        context.getBean(MemberRepository.class).saveAllBatched(members, 100);
+    }
+
+    private static void run(String mode, URI uri, int concurrency, int requests) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(8)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicInteger peakThreads = new AtomicInteger();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            peakThreads.accumulateAndGet(ManagementFactory.getThreadMXBean().getThreadCount(), Math::max); //플랫폼 스레드만 집계된다
+        }, 0, 50, TimeUnit.MILLISECONDS);
+
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<CompletableFuture<?>> futures = new ArrayList<>(requests);
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        if (e != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        long elapsed = System.nanoTime() - started;
+        sampler.shutdownNow();
+
+        Arrays.sort(latencies);
+        System.out.printf("mode=%s concurrency=%d requests=%d errors=%d%n", mode, concurrency, requests, errors.get());
+        System.out.printf("throughput=%.1f req/s p50=%.1fms p99=%.1fms max=%.1fms%n",
+                requests / (elapsed / 1e9), millis(percentile(latencies, 50)), millis(percentile(latencies, 99)), millis(latencies[requests - 1]));
+        System.out.printf("peakHeap=%dMB peakPlatformThreads=%d%n", peakHeap.get() / (1024 * 1024), peakThreads.get());
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,43 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.entity.Member;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * count 쿼리 분리 여부에 따른 페이징 조회 비교 (findMemberNoConfigCountQuery vs findMemberConfigCountQuery)
+ * - 첫 페이지에서 전체 건수가 페이지 크기보다 작으면 count 쿼리를 생략하므로 두 번째 페이지를 조회한다
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberCountQueryBenchmark {
+
+    private static final PageRequest PAGE = PageRequest.of(1, 20);
+
+    @Benchmark
+    public Page<Member> derivedCount(RepositoryFixture fixture, StatementCounter counter) { //1. select count(m) from Member m
+        return counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findMemberNoConfigCountQuery(PAGE)));
+    }
+
+    @Benchmark
+    public Page<Member> derivedCountWithJoin(RepositoryFixture fixture, StatementCounter counter) { //2. count 쿼리에도 left join
+        return counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findMemberNoConfigCountQuery2(PAGE)));
+    }
+
+    @Benchmark
+    public Page<Member> separateCount(RepositoryFixture fixture, StatementCounter counter) { //3. countQuery로 join 제거
+        return counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findMemberConfigCountQuery(PAGE)));
+    }
+}
@@ -0,0 +1,59 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 + 팀 조회 스타일 비교 (MemberRepository style 1 ~ 4)
+ * - 모든 스타일에서 팀 이름까지 읽어서 지연 로딩 비용을 포함한다
+ * - lazy: fetch join 없이 조회 후 지연 로딩 (default_batch_fetch_size로 팀을 in 쿼리로 모아서 초기화)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberFetchBenchmark {
+
+    @Benchmark
+    public int fetchJoin(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        return counter.count(() -> fixture.inTransaction(() -> touchTeams(fixture.memberRepository.findMemberFetchJoin(), bh)));
+    }
+
+    @Benchmark
+    public int entityGraph(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        return counter.count(() -> fixture.inTransaction(() -> touchTeams(fixture.memberRepository.findAll(), bh)));
+    }
+
+    @Benchmark
+    public int jpqlEntityGraph(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        return counter.count(() -> fixture.inTransaction(() -> touchTeams(fixture.memberRepository.findMemberEntityGraph(), bh)));
+    }
+
+    @Benchmark
+    public int namedEntityGraph(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        return counter.count(() -> fixture.inTransaction(() -> touchTeams(fixture.memberRepository.findMemberNamedEntityGraph(), bh)));
+    }
+
+    @Benchmark
+    public int lazy(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        return counter.count(() -> fixture.inTransaction(() -> touchTeams(fixture.memberRepository.findHelloBy(), bh)));
+    }
+
+    private static int touchTeams(List<Member> members, Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(member.getTeam().getName());
+        }
+        return members.size();
+    }
+}
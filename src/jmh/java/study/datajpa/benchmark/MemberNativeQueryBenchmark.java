@@ -0,0 +1,69 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberProjection;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 네이티브 쿼리 행 처리량 비교 : 스프링 데이터 네이티브 쿼리 + 인터페이스 Projection(프록시) vs NativeQueryExecutor
+ * - 모두 회원 memberCount 건 전체(팀 left join)를 읽고 id, username, teamName을 소비한다 -> ops/s * memberCount = 초당 행 수
+ * - proxy / executorPage는 한 페이지로 전부 조회 (첫 페이지가 전체보다 크므로 count 쿼리는 생략된다)
+ * - executorStream은 행마다 DTO 생성, executorForEach는 DTO 한 개를 재사용
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberNativeQueryBenchmark {
+
+    private static final int FETCH_SIZE = 500;
+
+    @Benchmark
+    public void proxy(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        Page<MemberProjection> result = counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findByNativeProjection(PageRequest.of(0, fixture.memberCount + 1))));
+        result.forEach(projection -> {
+            bh.consume(projection.getId());
+            bh.consume(projection.getUsername());
+            bh.consume(projection.getTeamName());
+        });
+    }
+
+    @Benchmark
+    public void executorPage(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        Page<MemberDto> result = counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findMemberDtoNative(PageRequest.of(0, fixture.memberCount + 1), false)));
+        result.forEach(dto -> consume(dto, bh));
+    }
+
+    @Benchmark
+    public long executorStream(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        return counter.count(() -> fixture.inTransaction(() -> {
+            try (Stream<MemberDto> stream = fixture.memberRepository.streamMemberDtoNative(FETCH_SIZE)) {
+                return stream.peek(dto -> consume(dto, bh)).count();
+            }
+        }));
+    }
+
+    @Benchmark
+    public long executorForEach(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        return counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.forEachMemberDtoNative(FETCH_SIZE, dto -> consume(dto, bh))));
+    }
+
+    private static void consume(MemberDto dto, Blackhole bh) {
+        bh.consume(dto.getId());
+        bh.consume(dto.getUsername());
+        bh.consume(dto.getTeamName());
+    }
+}
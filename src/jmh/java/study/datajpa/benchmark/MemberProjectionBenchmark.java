@@ -0,0 +1,91 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.repository.Repository;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+import study.datajpa.repository.UsernameOnlyDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projection 방식 비교 : 인터페이스(프록시) vs 클래스(DTO) vs 동적 Projection, 그리고 엔티티 조회
+ * - username 조건은 memberCount / USERNAME_GROUPS 건을 반환한다
+ * - 인터페이스 Projection은 getUsername()까지 호출해서 프록시 접근 비용을 포함한다
+ *   (UsernameOnly는 @Value Open Projection 메서드가 있으므로 select 절 최적화 없이 엔티티 전체를 조회한다)
+ * - 중첩 Projection : nestedProjection(ProjectionQuerySupport, 필요한 컬럼만) vs derivedNestedProjection(파생 쿼리, 팀 전체 컬럼)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberProjectionBenchmark {
+
+    private static final String USERNAME = RepositoryFixture.usernameOf(0);
+
+    @Benchmark
+    public void entity(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        List<Member> result = counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findListByUsername(USERNAME)));
+        result.forEach(member -> bh.consume(member.getUsername()));
+    }
+
+    @Benchmark
+    public void interfaceProjection(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        List<UsernameOnly> result = counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findProjectionsByUsername(USERNAME)));
+        result.forEach(projection -> bh.consume(projection.getUsername()));
+    }
+
+    @Benchmark
+    public void classProjection(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        List<UsernameOnlyDto> result = counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findProjectionsDtoByUsername(USERNAME)));
+        result.forEach(dto -> bh.consume(dto.getUsername()));
+    }
+
+    @Benchmark
+    public void dynamicProjection(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) {
+        List<UsernameOnlyDto> result = counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findProjectionsByUsername(USERNAME, UsernameOnlyDto.class)));
+        result.forEach(dto -> bh.consume(dto.getUsername()));
+    }
+
+    @Benchmark
+    public void nestedProjection(RepositoryFixture fixture, StatementCounter counter, Blackhole bh) { //ProjectionQuerySupport : m.username, team.name만 select (left join)
+        List<NestedClosedProjections> result = counter.count(() -> fixture.inTransaction(() -> fixture.memberRepository.findProjectionsByUsername(USERNAME, NestedClosedProjections.class)));
+        result.forEach(projection -> bh.consume(projection.getTeam().getName()));
+    }
+
+    @Benchmark
+    public void derivedNestedProjection(RepositoryFixture fixture, DerivedProjection derived, StatementCounter counter, Blackhole bh) { //파생 쿼리 : root 엔티티를 넘어가면 팀 전체 컬럼 조회
+        List<NestedClosedProjections> result = counter.count(() -> fixture.inTransaction(() -> derived.repository.findProjectionsByUsername(USERNAME, NestedClosedProjections.class)));
+        result.forEach(projection -> bh.consume(projection.getTeam().getName()));
+    }
+
+    //ProjectionQuerySupport 이전의 동적 Projection 파생 쿼리 (MemberRepository에는 더 이상 없으므로 벤치마크에서만 만든다)
+    public interface DerivedProjectionRepository extends Repository<Member, Long> {
+        <T> List<T> findProjectionsByUsername(String username, Class<T> type);
+    }
+
+    @State(Scope.Benchmark)
+    public static class DerivedProjection {
+
+        private DerivedProjectionRepository repository;
+
+        @Setup(Level.Trial)
+        public void setUp(RepositoryFixture fixture) { //RepositoryFixture 셋업 이후에 호출된다
+            repository = fixture.plainRepository(DerivedProjectionRepository.class);
+        }
+    }
+}
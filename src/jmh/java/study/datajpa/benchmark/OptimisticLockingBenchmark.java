@@ -0,0 +1,86 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * 같은 회원(hot row)을 writers개 스레드가 동시에 수정할 때 처리량 비교 : 낙관적 락 + 재시도 vs 비관적 락(select ... for update)
+ * - 한 번 호출에 UPDATES건을 writers개 스레드가 나누어 수정한다 -> 결과는 writers와 상관없이 초당 수정 건수
+ * - 낙관적 락의 충돌/재시도 수는 /actuator/metrics/datajpa.optimistic.conflicts 와 같은 지표로 집계된다
+ * ./gradlew jmh -PjmhIncludes=OptimisticLockingBenchmark -PmemberCount=1000
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OptimisticLockingBenchmark {
+
+    private static final int UPDATES = 256;
+
+    @Param({"1", "8", "64"})
+    public int writers;
+
+    private ExecutorService executor;
+    private Long hotMemberId;
+
+    @Setup(Level.Trial)
+    public void setUp(RepositoryFixture fixture) {
+        executor = Executors.newFixedThreadPool(writers);
+        hotMemberId = fixture.memberRepository.save(new Member("hot", 0)).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void optimistic(RepositoryFixture fixture) throws Exception {
+        run(id -> fixture.memberRepository.addAgeOptimistic(id, 1));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void pessimistic(RepositoryFixture fixture) throws Exception {
+        run(id -> fixture.memberRepository.addAgePessimistic(id, 1));
+    }
+
+    private void run(LongConsumer update) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(writers);
+        for (int writer = 0; writer < writers; writer++) {
+            int updates = UPDATES / writers + (writer < UPDATES % writers ? 1 : 0);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < updates; i++) {
+                    update.accept(hotMemberId);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.support.CompiledProjectionFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projection 한 건(row)을 만들고 모든 getter를 읽는 비용 : JDK 프록시(스프링 데이터 기본) vs 생성된 클래스
+ * - DB 없이 쿼리 결과와 같은 원본(Tuple Map, 엔티티)으로 변환 비용만 비교한다 (-prof gc로 row당 할당량 확인)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionFactoryBenchmark {
+
+    private final ProjectionFactory proxyFactory = new SpelAwareProxyProjectionFactory();
+    private final ProjectionFactory compiledFactory = new CompiledProjectionFactory();
+
+    private Map<String, Object> tuple;
+    private Member member;
+
+    @Setup
+    public void setUp() {
+        tuple = new HashMap<>();
+        tuple.put("id", 1L);
+        tuple.put("username", "member1");
+        tuple.put("teamName", "teamA");
+        member = new Member("member1", 10, new Team("teamA"));
+    }
+
+    @Benchmark
+    public void tupleProxy(Blackhole bh) {
+        readTuple(proxyFactory.createProjection(MemberProjection.class, tuple), bh);
+    }
+
+    @Benchmark
+    public void tupleCompiled(Blackhole bh) {
+        readTuple(compiledFactory.createProjection(MemberProjection.class, tuple), bh);
+    }
+
+    @Benchmark
+    public void nestedProxy(Blackhole bh) {
+        readNested(proxyFactory.createProjection(NestedClosedProjections.class, member), bh);
+    }
+
+    @Benchmark
+    public void nestedCompiled(Blackhole bh) {
+        readNested(compiledFactory.createProjection(NestedClosedProjections.class, member), bh);
+    }
+
+    private static void readTuple(MemberProjection projection, Blackhole bh) {
+        bh.consume(projection.getId());
+        bh.consume(projection.getUsername());
+        bh.consume(projection.getTeamName());
+    }
+
+    private static void readNested(NestedClosedProjections projection, Blackhole bh) {
+        bh.consume(projection.getUsername());
+        bh.consume(projection.getTeam().getName());
+    }
+}
@@ -0,0 +1,99 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 + 임베디드 H2(mem) 픽스처
+ * - memberCount 만큼 회원을 미리 등록해 두고, 트라이얼(@Param 값 하나)이 끝나면 컨텍스트를 내린다
+ * - 회원 이름은 USERNAME_GROUPS 가지로 반복되므로 username 조건 조회는 memberCount / USERNAME_GROUPS 건을 반환한다
+ * - 쿼리 스타일 자체를 비교하기 위해 2차 캐시/쿼리 캐시와 SQL 로그는 끈다
+ */
+@State(Scope.Benchmark)
+public class RepositoryFixture {
+
+    public static final int TEAM_COUNT = 100;
+    public static final int USERNAME_GROUPS = 100;
+
+    @Param({"1000", "10000"}) //./gradlew jmh -PmemberCount=100000 으로 변경
+    public int memberCount;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnlyTransaction;
+
+    public MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run( //application.yml보다 우선하도록 커맨드라인 인자로 넘긴다
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--decorator.datasource.p6spy.enable-logging=false", //QueryCountListener는 그대로 동작
+                        "--datajpa.optimistic-retry.max-attempts=1000", //OptimisticLockingBenchmark : 64개 스레드가 같은 행을 수정해도 재시도를 다 쓰지 않도록
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn");
+
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        seed(context.getBean(TeamRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //컨텍스트에 등록하지 않은 리포지토리 인터페이스를 스프링 데이터 JPA 기본 동작(파생 쿼리 그대로)으로 만든다
+    public <R> R plainRepository(Class<R> repositoryInterface) {
+        return new JpaRepositoryFactory(context.getBean(EntityManager.class)).getRepository(repositoryInterface);
+    }
+
+    //벤치마크 한 번 호출 = 트랜잭션 하나 (지연 로딩을 위해 영속성 컨텍스트를 유지하고, 호출마다 비운다)
+    public <T> T inTransaction(Supplier<T> action) {
+        return readOnlyTransaction.execute(status -> action.get());
+    }
+
+    public static String usernameOf(int index) {
+        return "member" + (index % USERNAME_GROUPS);
+    }
+
+    private void seed(TeamRepository teamRepository) {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamRepository.saveAll(teams);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new Member(usernameOf(i), i % 60, teams.get(i % TEAM_COUNT)));
+        }
+        memberRepository.saveAllBatched(members, 1000);
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.datajpa.jdbc.QueryCount;
+import study.datajpa.jdbc.QueryCountHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * 벤치마크 한 번 호출에 실행된 SQL 수 (QueryCountListener가 집계)
+ * - 처리량/할당률 옆에 statementsPerOp 보조 지표로 함께 출력된다
+ * - 모든 스타일에 같은 집계 비용이 들어가므로 스타일 간 비교에는 영향이 없다
+ */
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+public class StatementCounter {
+
+    private long statements;
+    private long invocations;
+
+    public double statementsPerOp;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        statements = 0;
+        invocations = 0;
+        statementsPerOp = 0;
+    }
+
+    public <T> T count(Supplier<T> action) {
+        QueryCountHolder.start("benchmark");
+        try {
+            return action.get();
+        } finally {
+            QueryCount count = QueryCountHolder.stop();
+            statements += count.getTotal();
+            statementsPerOp = (double) statements / ++invocations;
+        }
+    }
+}
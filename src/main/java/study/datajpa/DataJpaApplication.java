@@ -6,22 +6,22 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.domain.AuditorAware;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import study.datajpa.repository.support.ExtendedJpaRepositoryFactoryBean;
 
 import java.util.Optional;
 import java.util.UUID;
 
-@EnableJpaAuditing
-@SpringBootApplication
+@SpringBootApplication //@EnableJpaAuditing은 AuditingConfig (datajpa.auditing.mode)
 //@EnableJpaRepositories(basePackages = "study.datajpa.repository") //부트 사용 시 생략 가능, 메인 앱 하위가 아닐 경우 지정
+@EnableJpaRepositories(repositoryFactoryBeanClass = ExtendedJpaRepositoryFactoryBean.class) //리포지토리 프록시에 공통 어드바이스(@QueryBudget 등) 적용
 public class DataJpaApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(DataJpaApplication.class, args);
 	}
 
-	/* @CreatedBy, @LastModifiedBy 가 사용하는 빈 */
+	/* @CreatedBy, @LastModifiedBy 가 사용하는 빈 (flush 모드에서는 트랜잭션마다 한 번 호출) */
 	@Bean
 	public AuditorAware<String> auditorProvider() {
 		return () -> Optional.of(UUID.randomUUID().toString()); //AuditorAware.getCurrentAuditor() 구현
@@ -0,0 +1,38 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 비동기 리포지토리 메서드(@Async("repositoryExecutor"))가 사용하는 Executor
+ * - 작업마다 애플리케이션 커넥션 풀에서 커넥션을 하나씩 사용한다
+ *   풀보다 작게 잡아도, 요청 스레드가 트랜잭션(커넥션)을 쥔 채로 작업 결과를 기다리면 동시 요청이 풀 크기만큼 몰렸을 때 멈출 수 있다
+ *   -> 결과를 기다리는 쪽은 트랜잭션 밖에서 호출한다 (CountMode.PARALLEL의 count는 전용 풀을 사용 - PageCountSupport)
+ * - readOnly 트랜잭션에서 호출하면 작업도 readOnly 트랜잭션에서 실행한다 (ReadOnlyTransactionTaskDecorator)
+ * - 큐가 가득 차면 호출한 스레드에서 바로 실행한다 (느려질 뿐 요청이 실패하지는 않는다)
+ */
+@EnableAsync
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor repositoryExecutor(@Value("${datajpa.async.pool-size:4}") int poolSize,
+                                                     @Value("${datajpa.async.queue-capacity:100}") int queueCapacity,
+                                                     PlatformTransactionManager transactionManager) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("repository-");
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new ReadOnlyTransactionTaskDecorator(transactionManager));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
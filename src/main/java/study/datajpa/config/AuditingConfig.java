@@ -0,0 +1,38 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.entity.CoarseClock;
+import study.datajpa.repository.support.FlushAuditingInterceptor;
+
+/**
+ * 감사(Auditing) 방식 선택 (datajpa.auditing.mode)
+ * - listener (기본) : 스프링 데이터 AuditingEntityListener -> 엔티티마다 AuditorAware 호출 + 리플렉션으로 필드 설정
+ * - flush : FlushAuditingInterceptor -> 트랜잭션마다 AuditorAware 한 번, CoarseClock, 하이버네이트 상태 배열에 직접 설정
+ *   @EnableJpaAuditing을 켜지 않으므로 엔티티의 @EntityListeners(AuditingEntityListener.class)는 아무 일도 하지 않는다
+ */
+@Configuration
+public class AuditingConfig {
+
+    @Configuration
+    @EnableJpaAuditing
+    @ConditionalOnProperty(prefix = "datajpa.auditing", name = "mode", havingValue = "listener", matchIfMissing = true)
+    static class ListenerAuditingConfig {
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "datajpa.auditing", name = "mode", havingValue = "flush")
+    static class FlushAuditingConfig {
+
+        @Bean
+        public HibernatePropertiesCustomizer flushAuditingInterceptor(ObjectProvider<AuditorAware<?>> auditorAware) {
+            FlushAuditingInterceptor interceptor = new FlushAuditingInterceptor(auditorAware, CoarseClock.SYSTEM);
+            return hibernateProperties -> hibernateProperties.put("hibernate.session_factory.interceptor", interceptor);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import study.datajpa.jdbc.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * datajpa.datasource.routing.enabled=true 이면 primary + 복제본 라우팅 DataSource를 등록한다
+ * (DataSource 빈을 직접 등록하므로 스프링 부트의 DataSource 자동 설정은 동작하지 않는다)
+ * - 모든 풀(primary, 복제본)은 spring.datasource.hikari.* 설정을 기본값으로 사용한다 (maximum-pool-size, connection-timeout ...)
+ * - 풀은 빈이 아니므로(p6spy가 풀마다 따로 감싸지 않도록) Hikari 메트릭을 직접 연결한다 -> hikaricp.connections.* {pool=primary|replica1...}
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+@ConditionalOnProperty(prefix = "datajpa.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig implements DisposableBean {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    //DataSource가 아니라 설정 객체만 빈으로 등록한다
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig routingHikariConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ReplicaRoutingProperties routingProperties,
+                                 HikariConfig routingHikariConfig, MeterRegistry meterRegistry) {
+        HikariDataSource primary = createPool("primary", routingHikariConfig, meterRegistry);
+        primary.setJdbcUrl(dataSourceProperties.determineUrl());
+        primary.setUsername(dataSourceProperties.determineUsername());
+        primary.setPassword(dataSourceProperties.determinePassword());
+        primary.setDriverClassName(dataSourceProperties.determineDriverClassName());
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaRoutingProperties.Replica> replicaProperties = routingProperties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            ReplicaRoutingProperties.Replica replica = replicaProperties.get(i);
+            String name = replica.getName() != null ? replica.getName() : "replica" + (i + 1);
+            replicas.put(name, createReplica(name, replica, dataSourceProperties, routingHikariConfig, meterRegistry));
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, routingProperties.getStrategy(),
+                routingProperties.getMaxLag(), routingProperties.getLagQuery());
+        routingDataSource.startHealthChecks(routingProperties.getHealthCheckInterval());
+
+        //트랜잭션 시작 시점이 아니라 첫 SQL 실행 시점에 커넥션을 얻는다 -> 그때는 readOnly 여부가 정해져 있다
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private HikariDataSource createReplica(String name, ReplicaRoutingProperties.Replica replica, DataSourceProperties primary,
+                                           HikariConfig defaults, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = createPool(name, defaults, meterRegistry);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername());
+        dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword());
+        dataSource.setDriverClassName(primary.determineDriverClassName());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    //풀은 첫 커넥션 요청 때 시작되므로 그 전에 설정과 메트릭을 채운다
+    private HikariDataSource createPool(String name, HikariConfig defaults, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        defaults.copyStateTo(dataSource);
+        dataSource.setPoolName(name);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+
+    @Override
+    public void destroy() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.jdbc.AllocatorIdentifierGenerator;
+import study.datajpa.jdbc.BlockIdAllocator;
+import study.datajpa.jdbc.IdAllocator;
+import study.datajpa.jdbc.TimeOrderedIdAllocator;
+
+import java.time.Duration;
+
+/**
+ * 식별자 할당 전략 (datajpa.id.strategy, Member.id, Team.id)
+ * - sequence (기본) : pooled 시퀀스 (allocationSize = 100)
+ * - block : id_block 테이블에서 노드별로 block-size 개씩 임대 (BlockIdAllocator)
+ *   임대는 애플리케이션 풀과 분리된 커넥션 1개짜리 풀을 사용한다 (요청 스레드가 풀을 다 잡고 있어도 임대가 막히지 않도록)
+ * - time : 시간 순서 64비트 식별자 (TimeOrderedIdAllocator), node-id는 노드마다 다르게
+ * 할당기는 하이버네이트 설정으로 이 컨텍스트의 SessionFactory에만 넘긴다 (AllocatorIdentifierGenerator.ALLOCATOR_SETTING)
+ */
+@Configuration
+public class IdAllocatorConfig implements DisposableBean {
+
+    private HikariDataSource leaseDataSource;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "datajpa.id", name = "strategy", havingValue = "block")
+    public IdAllocator blockIdAllocator(DataSourceProperties dataSourceProperties,
+                                        @Value("${datajpa.id.block.size:1000}") int blockSize,
+                                        @Value("${datajpa.id.block.initial-value:1}") long initialValue,
+                                        @Value("${datajpa.id.block.lease-timeout:5s}") Duration leaseTimeout,
+                                        @Value("${datajpa.id.node-name:${HOSTNAME:local}}") String nodeName) {
+        //DataSource 빈으로 등록하지 않는다 (등록하면 스프링 부트의 기본 DataSource 자동 설정이 빠진다)
+        leaseDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        leaseDataSource.setPoolName("id-block-lease");
+        leaseDataSource.setMaximumPoolSize(1);
+        leaseDataSource.setMinimumIdle(0);
+        leaseDataSource.setConnectionTimeout(leaseTimeout.toMillis());
+        return new BlockIdAllocator(leaseDataSource, blockSize, initialValue, nodeName);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "datajpa.id", name = "strategy", havingValue = "time")
+    public IdAllocator timeOrderedIdAllocator(@Value("${datajpa.id.node-id:0}") int nodeId) {
+        return new TimeOrderedIdAllocator(nodeId);
+    }
+
+    //sequence 전략이면 할당기 빈이 없으므로 설정을 넣지 않는다 -> 시퀀스
+    @Bean
+    public HibernatePropertiesCustomizer idAllocatorHibernateProperties(ObjectProvider<IdAllocator> idAllocator) {
+        return hibernateProperties -> idAllocator.ifAvailable(allocator ->
+                hibernateProperties.put(AllocatorIdentifierGenerator.ALLOCATOR_SETTING, allocator));
+    }
+
+    @Override
+    public void destroy() {
+        if (leaseDataSource != null) {
+            leaseDataSource.close();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * readOnly 트랜잭션에서 호출한 비동기 작업을 작업 스레드의 새 readOnly 트랜잭션에서 실행한다
+ * - 영속성 컨텍스트(EntityManager)는 스레드 간에 공유할 수 없으므로 호출한 쪽의 트랜잭션에 참여할 수 없다
+ *   (같은 트랜잭션이 아니므로 호출한 쪽에서 아직 커밋하지 않은 변경은 보이지 않는다)
+ * - 쓰기 트랜잭션에서 호출하면 트랜잭션 없이 실행한다 (리포지토리 메서드의 트랜잭션 설정을 따른다)
+ *   작업 스레드에서 쓰기 트랜잭션을 열면 호출한 쪽이 롤백해도 작업의 변경은 따로 커밋되기 때문
+ * - 호출한 쪽에 트랜잭션이 없으면 그대로 실행
+ */
+public class ReadOnlyTransactionTaskDecorator implements TaskDecorator {
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReadOnlyTransactionTaskDecorator(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return runnable;
+        }
+        return () -> readOnlyTransaction.executeWithoutResult(status -> runnable.run());
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import study.datajpa.jdbc.ReplicaRoutingDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 복제본 라우팅 설정 (datajpa.datasource.routing.*)
+ * - primary는 spring.datasource.* 설정을 그대로 사용한다
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "datajpa.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+    private ReplicaRoutingDataSource.Strategy strategy = ReplicaRoutingDataSource.Strategy.ROUND_ROBIN;
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    private Duration maxLag = Duration.ofSeconds(10);
+    private String lagQuery; //예) PostgreSQL: select extract(epoch from now() - pg_last_xact_replay_timestamp())
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter @Setter
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * virtual 프로필 : 톰캣 요청 처리 스레드 풀 대신 요청마다 가상 스레드(JDK 21+)로 컨트롤러를 실행한다
+ * - JDBC 커넥션을 기다리는 동안 플랫폼 스레드를 점유하지 않으므로 대기 요청이 많아도 메모리를 거의 쓰지 않는다
+ * - 동시에 DB를 쓰는 요청 수는 DbAdmissionHandlerInterceptor가 커넥션 풀 크기로 제한한다
+ * - 빌드는 Java 11 그대로 두고 실행 JDK에서 newVirtualThreadPerTaskExecutor를 리플렉션으로 찾는다
+ */
+@Slf4j
+@Configuration
+@Profile("virtual")
+public class VirtualThreadConfig implements DisposableBean {
+
+    private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            protocolHandler.setExecutor(virtualThreadExecutor);
+            log.info("톰캣 요청을 가상 스레드에서 실행합니다");
+        };
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("virtual 프로필은 JDK 21 이상에서 실행해야 합니다. 현재 JDK: " + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 Executor를 생성할 수 없습니다", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        virtualThreadExecutor.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.controller.DbAdmissionHandlerInterceptor;
+import study.datajpa.controller.QueryBudgetHandlerInterceptor;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final QueryBudgetHandlerInterceptor queryBudgetHandlerInterceptor;
+    private final ObjectProvider<DbAdmissionHandlerInterceptor> dbAdmissionHandlerInterceptor; //virtual 프로필에서만 등록
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        dbAdmissionHandlerInterceptor.ifAvailable(registry::addInterceptor); //수락된 요청만 SQL 집계
+        registry.addInterceptor(queryBudgetHandlerInterceptor);
+    }
+}
@@ -0,0 +1,64 @@
+package study.datajpa.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 수락 제한 (virtual 프로필)
+ * - 가상 스레드는 요청마다 생성되므로 스레드 풀이 동시 실행 수를 제한해주지 않는다
+ * - 커넥션 풀 크기만큼만 핸들러를 실행하고 나머지는 세마포어에서 기다리게 한다 (커넥션 대기 타임아웃 대신 빠르게 503)
+ */
+@Slf4j
+@Component
+@Profile("virtual")
+public class DbAdmissionHandlerInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = DbAdmissionHandlerInterceptor.class.getName() + ".PERMIT";
+
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    public DbAdmissionHandlerInterceptor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+                                         @Value("${datajpa.admission.timeout:2s}") Duration timeout) {
+        this.permits = new Semaphore(maximumPoolSize, true); //먼저 온 요청부터
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod)) {
+            return true; //정적 리소스 등
+        }
+        try {
+            if (permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("요청 수락 대기 시간 초과 {} {} (대기 중: {})", request.getMethod(), request.getRequestURI(), permits.getQueueLength());
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+}
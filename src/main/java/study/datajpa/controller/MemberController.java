@@ -6,18 +6,28 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.dto.TeamDto;
 import study.datajpa.entity.Member;
+import study.datajpa.jdbc.QueryBudget;
+import study.datajpa.repository.CountMode;
+import study.datajpa.repository.KeysetCursor;
+import study.datajpa.repository.KeysetSlice;
 import study.datajpa.repository.MemberRepository;
 import study.datajpa.repository.TeamRepository;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by frenchline707@gmail.com on 2020-11-16
@@ -46,9 +56,11 @@ public class MemberController {
     }
 
     //스프링 데이터가 제공하는 페이징과 정렬 기능을 스프링 MVC에서 편리하게 사용할 수 있다
+    @QueryBudget(3) //content + count + team 조회, MemberDto::new에서 팀마다 지연 로딩이 일어나면 경고
     @GetMapping("/members")
-    public Page<MemberDto> list(Pageable pageable) { //파라미터들이 바인딩 될 때 PageRequest 객체 생성 후 값을 할당해 인젝션
-        return memberRepository.findAll(pageable)
+    public Page<MemberDto> list(Pageable pageable, //파라미터들이 바인딩 될 때 PageRequest 객체 생성 후 값을 할당해 인젝션
+                                @RequestParam(value = "count", defaultValue = "CACHED") CountMode countMode) { //?count=EXACT|CACHED|ESTIMATED|HAS_NEXT|PARALLEL
+        return memberRepository.findAll(pageable, countMode) //기본은 캐시된 count 사용 (TTL 동안 재사용)
                 .map(MemberDto::new);
     }
 
@@ -60,23 +72,44 @@ public class MemberController {
     }
 
     //페이징 정보가 둘 이상이면 접두사로 구분: @Qualifier
+    //서로 독립적인 두 조회를 동시에 실행 -> 응답 시간은 두 조회 시간의 합이 아니라 느린 쪽을 따른다
     @GetMapping("/members_prefix")
     public Map<String, Object> list(@Qualifier("member") Pageable memberPageable, @Qualifier("team") Pageable teamPageable) {
-        Page<MemberDto> memberPage = memberRepository.findAll(memberPageable).map(MemberDto::new);
-        Page<TeamDto> teamPage = teamRepository.findAll(teamPageable).map(TeamDto::new);
+        CompletableFuture<Page<MemberDto>> memberPage = memberRepository.findAllAsync(memberPageable).thenApply(page -> page.map(MemberDto::new));
+        CompletableFuture<Page<TeamDto>> teamPage = teamRepository.findAllAsync(teamPageable).thenApply(page -> page.map(TeamDto::new));
 
         Map<String, Object> pageMap = new HashMap<>();
-        pageMap.put("memberPage", memberPage);
-        pageMap.put("teamPage", teamPage);
+        pageMap.put("memberPage", memberPage.join());
+        pageMap.put("teamPage", teamPage.join());
 
         return pageMap;
     }
 
+    //키셋(Seek) 페이징: offset 대신 커서(마지막 조회 위치) 다음부터 조회하므로 깊은 페이지도 응답 시간이 일정하다
+    //첫 페이지는 cursor 없이 요청하고, 이후에는 응답의 nextCursor 값을 그대로 넘긴다
+    @GetMapping("/members/keyset")
+    public KeysetSlice<MemberDto> keysetList(@RequestParam(value = "cursor", required = false) String cursor,
+                                             @RequestParam(value = "size", defaultValue = "10") int size,
+                                             @RequestParam(value = "age", required = false) Integer age) {
+        KeysetCursor keysetCursor;
+        try {
+            keysetCursor = KeysetCursor.fromToken(cursor, size);
+        } catch (IllegalArgumentException e) { //잘못된 토큰, size < 1 -> 클라이언트 요청 오류 (500 X)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        KeysetSlice<Member> slice = (age == null)
+                ? memberRepository.findMemberKeyset(keysetCursor)
+                : memberRepository.findByAge(age, keysetCursor);
+        return slice.map(MemberDto::new);
+    }
+
 //    @PostConstruct
     public void init() {
+        List<Member> members = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
+            members.add(new Member("user" + i, i));
         }
+        memberRepository.saveAllBatched(members, 100); //건마다 save() 대신 JDBC 배치 INSERT
     }
 
 }
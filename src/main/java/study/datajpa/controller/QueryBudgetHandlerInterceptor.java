@@ -0,0 +1,37 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import study.datajpa.jdbc.QueryBudget;
+import study.datajpa.jdbc.QueryBudgetVerifier;
+import study.datajpa.jdbc.QueryCount;
+import study.datajpa.jdbc.QueryCountHolder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청 단위로 실행된 SQL을 집계해서 N + 1 의심 SQL과 @QueryBudget 초과 여부를 로그로 남긴다
+ * (OSIV로 컨트롤러에서 일어나는 지연 로딩까지 포함된다)
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryBudgetHandlerInterceptor implements HandlerInterceptor {
+
+    private final QueryBudgetVerifier verifier;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCountHolder.start(request.getMethod() + " " + request.getRequestURI());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryCount count = QueryCountHolder.stop();
+        QueryBudget budget = (handler instanceof HandlerMethod) ? ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class) : null;
+        verifier.verify(count, budget, false); //응답이 이미 나갔으므로 예외 대신 로그
+    }
+}
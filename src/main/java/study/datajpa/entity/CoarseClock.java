@@ -0,0 +1,47 @@
+package study.datajpa.entity;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * 정밀도를 낮춘 시계 : granularity 동안은 마지막으로 만든 LocalDateTime을 재사용한다
+ * - LocalDateTime.now()는 호출마다 시간대 오프셋 계산 + 객체 생성을 한다 -> 대량 등록에서는 행마다 반복된다
+ * - 감사(audit) 컬럼처럼 밀리초 단위 정확도가 필요 없는 곳에서 사용한다
+ */
+public final class CoarseClock {
+
+    public static final CoarseClock SYSTEM = new CoarseClock(Clock.systemDefaultZone(), Duration.ofMillis(10));
+
+    private final Clock clock;
+    private final long granularityMillis;
+    private volatile Tick tick = new Tick(Long.MIN_VALUE, null);
+
+    public CoarseClock(Clock clock, Duration granularity) {
+        this.clock = clock;
+        this.granularityMillis = granularity.toMillis();
+    }
+
+    public LocalDateTime now() {
+        long millis = clock.millis();
+        Tick current = tick;
+        if (millis >= current.millis && millis - current.millis < granularityMillis) {
+            return current.value;
+        }
+        LocalDateTime value = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+        tick = new Tick(millis, value);
+        return value;
+    }
+
+    private static final class Tick {
+
+        private final long millis;
+        private final LocalDateTime value;
+
+        Tick(long millis, LocalDateTime value) {
+            this.millis = millis;
+            this.value = value;
+        }
+    }
+}
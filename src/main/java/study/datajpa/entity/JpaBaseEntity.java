@@ -21,14 +21,14 @@ public class JpaBaseEntity {
 
     @PrePersist //persist(최초 등록)전 발생하는 이벤트
     public void prePersist() {
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = CoarseClock.SYSTEM.now(); //대량 등록 시 행마다 LocalDateTime.now() 호출 X
         createdDate = now;
         updatedDate = now; //null이 아닌 값을 채워 둬야 나중에 쿼리 날릴때 편하다
     }
 
     @PreUpdate //update(변경) 전 발생하는 이벤트
     public void preUpdate() {
-        updatedDate = LocalDateTime.now();
+        updatedDate = CoarseClock.SYSTEM.now();
     }
 
 }
@@ -5,17 +5,26 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedAttributeNode;
 import javax.persistence.NamedEntityGraph;
 import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import java.io.Serializable;
 
 /**
@@ -25,22 +34,38 @@ import java.io.Serializable;
  */
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) //2차 캐시 영역: study.datajpa.entity.Member (application.conf)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"}) //연관 관계 필드인 team은 포함하지 않는 것이 좋다. 무한 루프 걸림
 @NamedQuery(
         name = "Member.findByUsername", //관례상 "엔티티.메서드명"으로 명명
-        query = "select m from Member m where m.username = :username"
+        query = "select m from Member m where m.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable", value = "true") //쿼리 캐시 적용
 )
 @NamedEntityGraph(name = "Member.team", attributeNodes = @NamedAttributeNode("team")) //이렇게 엔티티에 정의한 @NamedEntityGraph를 @EntityGraph의 값으로 사용할 수 있다 (JPA 2.2+)
+@Table(indexes = { //키셋 페이징의 정렬 순서(username, member_id)와 동일한 인덱스
+        @Index(name = "idx_member_username_id", columnList = "username, member_id"),
+        @Index(name = "idx_member_age_username_id", columnList = "age, username, member_id")
+})
 public class Member extends BaseEntity {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "member_seq_generator")
+    @GenericGenerator(name = "member_seq_generator", strategy = "study.datajpa.jdbc.AllocatorIdentifierGenerator", parameters = { //datajpa.id.strategy (IdAllocatorConfig), 기본은 시퀀스
+            @Parameter(name = "sequence_name", value = "member_seq"),
+            @Parameter(name = "increment_size", value = "100"), //pooled 최적화: 시퀀스를 한 번 호출해서 100개의 식별자를 메모리에서 할당
+            @Parameter(name = "optimizer", value = "pooled")
+    })
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    @Version //낙관적 락 : update ... where id = ? and version = ? -> 수정된 행이 없으면 OptimisticLockException (락을 잡고 기다리지 않는다)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
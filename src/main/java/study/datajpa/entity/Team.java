@@ -5,12 +5,19 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.Version;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,16 +28,30 @@ import java.util.List;
  */
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) //2차 캐시 영역: study.datajpa.entity.Team (application.conf)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team extends JpaBaseEntity {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "team_seq_generator")
+    @GenericGenerator(name = "team_seq_generator", strategy = "study.datajpa.jdbc.AllocatorIdentifierGenerator", parameters = { //datajpa.id.strategy (IdAllocatorConfig), 기본은 시퀀스
+            @Parameter(name = "sequence_name", value = "team_seq"),
+            @Parameter(name = "increment_size", value = "100"), //pooled 최적화: 시퀀스를 한 번 호출해서 100개의 식별자를 메모리에서 할당
+            @Parameter(name = "optimizer", value = "pooled")
+    })
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version //낙관적 락 (Member.version과 동일)
+    private Long version;
+
+    //회원 추가/이동(Member.changeTeam)은 팀 자체의 변경이 아니므로 팀 버전을 올리지 않는다
+    //(버전을 올리면 같은 팀에 동시에 회원을 추가할 때 충돌하고, 회원 INSERT마다 update team이 한 번 더 나간다)
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
@@ -0,0 +1,74 @@
+package study.datajpa.jdbc;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * 교체 가능한 식별자 생성기 (@GenericGenerator(strategy = "study.datajpa.jdbc.AllocatorIdentifierGenerator"))
+ * - 등록된 IdAllocator가 있으면 그걸로 식별자를 만들고, 없으면 기존처럼 pooled 시퀀스(SequenceStyleGenerator)를 사용한다
+ * - 하이버네이트가 직접 생성하는 객체라서 스프링 빈을 주입받을 수 없다
+ *   -> IdAllocatorConfig가 하이버네이트 설정(ALLOCATOR_SETTING)으로 넘기고, 생성기는 자기 SessionFactory의 설정에서 꺼낸다
+ *   (정적 필드를 쓰지 않으므로 한 JVM에 컨텍스트가 여러 개 있어도(테스트 컨텍스트 캐시) 서로 섞이지 않는다)
+ * - 시퀀스 이름(sequence_name)을 IdAllocator의 식별자 이름으로 사용하고, 시퀀스 DDL은 할당기와 상관없이 그대로 만든다
+ * 운영 중인 DB에서 전략을 바꾸려면 기존 식별자보다 큰 값부터 나오도록 datajpa.id.block.initial-value를 맞춘다
+ */
+public class AllocatorIdentifierGenerator implements PersistentIdentifierGenerator, Configurable {
+
+    //IdAllocator 인스턴스를 담는 하이버네이트 설정 키 (없으면 시퀀스)
+    public static final String ALLOCATOR_SETTING = "hibernate.id.datajpa_allocator";
+
+    private final SequenceStyleGenerator sequence = new SequenceStyleGenerator();
+    private String name;
+    private IdAllocator allocator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        sequence.configure(type, params, serviceRegistry);
+        name = params.getProperty(SequenceStyleGenerator.SEQUENCE_PARAM);
+
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATOR_SETTING);
+        if (setting != null && !(setting instanceof IdAllocator)) {
+            throw new MappingException(ALLOCATOR_SETTING + "는 IdAllocator 인스턴스여야 합니다: " + setting);
+        }
+        allocator = (IdAllocator) setting;
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return allocator != null ? allocator.nextId(name) : sequence.generate(session, object);
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        sequence.registerExportables(database);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String[] sqlCreateStrings(Dialect dialect) throws HibernateException {
+        return sequence.sqlCreateStrings(dialect);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String[] sqlDropStrings(Dialect dialect) throws HibernateException {
+        return sequence.sqlDropStrings(dialect);
+    }
+
+    @Override
+    public Object generatorKey() {
+        return sequence.generatorKey();
+    }
+}
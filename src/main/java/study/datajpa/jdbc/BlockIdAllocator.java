@@ -0,0 +1,137 @@
+package study.datajpa.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 식별자 블록 임대 할당기
+ * - id_block 테이블의 이름별 행(next_value)을 select ... for update로 잠그고 blockSize만큼 올려서 [next_value, next_value + blockSize) 블록을 임대한다
+ *   임대 상태(다음 값, 마지막으로 임대한 노드와 시각)는 이 테이블에 남는다
+ * - 블록 안에서는 AtomicLong 증가만 하므로 락이 없고, 블록을 다 쓴 스레드 하나만 다음 블록을 임대한다
+ * - 임대는 호출한 트랜잭션과 별도의 커넥션으로 바로 커밋한다
+ *   애플리케이션 커넥션 풀을 쓰면 풀 크기만큼 동시에 등록하는 요청(DbAdmissionHandlerInterceptor)이 커넥션을 모두 잡고 있을 때
+ *   임대하는 스레드가 connection-timeout 동안 기다리고, 나머지 등록 스레드는 모니터에서 기다린다
+ *   -> 임대 전용 DataSource(커넥션 1개, IdAllocatorConfig)를 넘긴다
+ * - 재시작하면 쓰지 않은 블록의 나머지는 버려진다 (식별자에 구멍이 생긴다)
+ */
+@Slf4j
+public class BlockIdAllocator implements IdAllocator {
+
+    private static final Block EXHAUSTED = new Block(0, 0);
+
+    private final DataSource dataSource;
+    private final int blockSize;
+    private final long initialValue;
+    private final String node;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    private volatile boolean tableCreated;
+
+    public BlockIdAllocator(DataSource dataSource, int blockSize, long initialValue, String node) {
+        this.dataSource = dataSource;
+        this.blockSize = blockSize;
+        this.initialValue = initialValue;
+        this.node = node;
+    }
+
+    @Override
+    public long nextId(String name) {
+        while (true) {
+            Block block = blocks.getOrDefault(name, EXHAUSTED);
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            synchronized (this) { //블록을 다 쓴 경우에만 (blockSize 번에 한 번)
+                if (blocks.getOrDefault(name, EXHAUSTED) == block) {
+                    blocks.put(name, lease(name));
+                }
+            }
+        }
+    }
+
+    private Block lease(String name) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                createTableIfNecessary(connection);
+                long start = lockNextValue(connection, name);
+                try (PreparedStatement update = connection.prepareStatement(
+                        "update id_block set next_value = ?, leased_by = ?, leased_at = ? where name = ?")) {
+                    update.setLong(1, start + blockSize);
+                    update.setString(2, node);
+                    update.setTimestamp(3, Timestamp.from(Instant.now()));
+                    update.setString(4, name);
+                    update.executeUpdate();
+                }
+                connection.commit();
+                log.debug("식별자 블록 임대 [{}] {} ~ {} ({})", name, start, start + blockSize - 1, node);
+                return new Block(start, start + blockSize);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("식별자 블록을 임대할 수 없습니다: " + name, e);
+        }
+    }
+
+    //이름별 행을 잠그고 다음 값을 읽는다, 행이 없으면 initialValue로 만든다 (다른 노드와 동시에 만들면 다시 읽는다)
+    private long lockNextValue(Connection connection, String name) throws SQLException {
+        while (true) {
+            try (PreparedStatement select = connection.prepareStatement("select next_value from id_block where name = ? for update")) {
+                select.setString(1, name);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    if (resultSet.next()) {
+                        return resultSet.getLong(1);
+                    }
+                }
+            }
+            Savepoint savepoint = connection.setSavepoint(); //PostgreSQL은 실패한 문장 이후 트랜잭션 전체가 중단되므로 세이브포인트로 되돌린다
+            try (PreparedStatement insert = connection.prepareStatement("insert into id_block (name, next_value) values (?, ?)")) {
+                insert.setString(1, name);
+                insert.setLong(2, initialValue);
+                insert.executeUpdate();
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                log.debug("다른 노드가 먼저 id_block [{}] 행을 만들었습니다", name, e);
+            }
+        }
+    }
+
+    private void createTableIfNecessary(Connection connection) throws SQLException {
+        if (tableCreated) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists id_block (name varchar(100) primary key, next_value bigint not null, leased_by varchar(100), leased_at timestamp)");
+        }
+        tableCreated = true;
+    }
+
+    private static class Block {
+
+        private final AtomicLong next;
+        private final long end; //미포함
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package study.datajpa.jdbc;
+
+/**
+ * 식별자 할당기 (AllocatorIdentifierGenerator가 사용)
+ * - BlockIdAllocator : 공유 테이블에서 큰 식별자 블록을 노드별로 임대하고 메모리에서 나누어준다
+ * - TimeOrderedIdAllocator : 시간 순서 64비트 식별자 (시각 + 노드 + 순번), DB 왕복 없음
+ */
+public interface IdAllocator {
+
+    /**
+     * @param name 식별자 이름 (시퀀스 이름 : member_seq, team_seq)
+     */
+    long nextId(String name);
+}
@@ -0,0 +1,22 @@
+package study.datajpa.jdbc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 컨트롤러 메서드(요청 단위) 또는 리포지토리 메서드에서 허용하는 최대 SQL 실행 수
+ * - 초과하면 경고 로그를 남기고, strict = true인 리포지토리 메서드는 QueryBudgetExceededException을 던진다
+ * - 컨트롤러는 응답이 끝난 뒤(afterCompletion)에 검사하므로 항상 경고 로그만 남긴다
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryBudget {
+
+    int value();
+
+    boolean strict() default false;
+}
@@ -0,0 +1,35 @@
+package study.datajpa.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * QueryCount 결과 검사
+ * 1. 같은 SQL이 repeat-threshold 번 이상 반복되면 N + 1 의심 경고
+ * 2. @QueryBudget을 초과하면 경고 (strict면 예외)
+ */
+@Slf4j
+@Component
+public class QueryBudgetVerifier {
+
+    private final int repeatThreshold;
+
+    public QueryBudgetVerifier(@Value("${datajpa.query-count.repeat-threshold:3}") int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public void verify(QueryCount count, QueryBudget budget, boolean failFast) {
+        count.getRepeatedStatements(repeatThreshold).forEach((sql, times) ->
+                log.warn("N + 1 의심 [{}] 같은 SQL이 {}번 실행되었습니다: {}", count.getName(), times, sql));
+
+        if (budget == null || count.getTotal() <= budget.value()) {
+            return;
+        }
+        String message = String.format("[%s] SQL 실행 수 %d번이 허용치 %d번을 초과했습니다", count.getName(), count.getTotal(), budget.value());
+        if (failFast && budget.strict()) {
+            throw new QueryBudgetExceededException(message);
+        }
+        log.warn(message);
+    }
+}
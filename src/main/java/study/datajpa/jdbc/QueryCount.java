@@ -0,0 +1,39 @@
+package study.datajpa.jdbc;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 하나의 범위(요청, 리포지토리 메서드 호출)에서 실행된 SQL 통계
+ * - SQL은 바인딩 파라미터가 '?'인 상태로 모으므로, 파라미터만 다른 같은 SQL이 여러 번 실행되면 N + 1을 의심할 수 있다
+ */
+@Getter
+public class QueryCount {
+
+    private final String name;
+    private int total;
+    private final Map<String, Integer> statements = new HashMap<>();
+
+    QueryCount(String name) {
+        this.name = name;
+    }
+
+    void record(String sql) {
+        total++;
+        statements.merge(sql, 1, Integer::sum);
+    }
+
+    //threshold 번 이상 반복 실행된 SQL (N + 1 후보)
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statements.forEach((sql, count) -> {
+            if (count >= threshold) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+}
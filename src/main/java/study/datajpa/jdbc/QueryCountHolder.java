@@ -0,0 +1,56 @@
+package study.datajpa.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 스레드별 SQL 카운트 범위(scope) 관리
+ * - 요청 -> 리포지토리 메서드처럼 범위가 중첩되면 실행된 SQL은 열려 있는 모든 범위에 집계된다
+ * - start()와 stop()은 반드시 짝을 맞춰 호출한다 (try-finally)
+ */
+public final class QueryCountHolder {
+
+    private static final ThreadLocal<Deque<QueryCount>> SCOPES = new ThreadLocal<>();
+
+    private QueryCountHolder() {
+    }
+
+    public static QueryCount start(String name) {
+        Deque<QueryCount> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            SCOPES.set(scopes);
+        }
+        QueryCount count = new QueryCount(name);
+        scopes.push(count);
+        return count;
+    }
+
+    public static QueryCount stop() {
+        Deque<QueryCount> scopes = SCOPES.get();
+        if (scopes == null || scopes.isEmpty()) {
+            throw new IllegalStateException("시작된 QueryCount 범위가 없습니다");
+        }
+        QueryCount count = scopes.pop();
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+        }
+        return count;
+    }
+
+    //현재 스레드에서 가장 안쪽 범위, 없으면 null
+    public static QueryCount current() {
+        Deque<QueryCount> scopes = SCOPES.get();
+        return scopes == null ? null : scopes.peek();
+    }
+
+    static void record(String sql) {
+        Deque<QueryCount> scopes = SCOPES.get();
+        if (scopes == null) {
+            return; //범위 밖에서 실행된 SQL은 집계하지 않는다
+        }
+        for (QueryCount count : scopes) {
+            count.record(sql);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.jdbc;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * p6spy 이벤트 리스너 : 실행된 모든 SQL을 현재 스레드의 QueryCount 범위에 기록한다
+ * (p6spy-spring-boot-starter가 JdbcEventListener 타입의 빈을 자동으로 등록해준다)
+ * - SQL 로그 대신 실행 시간을 datajpa.jdbc.statements 타이머(kind=select|insert|update|delete|other, outcome)로 집계한다
+ */
+@Component
+public class QueryCountListener extends JdbcEventListener {
+
+    private static final String[] KINDS = {"select", "insert", "update", "delete", "other"};
+
+    private final Timer[] success = new Timer[KINDS.length];
+    private final Timer[] error = new Timer[KINDS.length];
+
+    public QueryCountListener(MeterRegistry meterRegistry) {
+        for (int i = 0; i < KINDS.length; i++) {
+            success[i] = meterRegistry.timer("datajpa.jdbc.statements", "kind", KINDS[i], "outcome", "success");
+            error[i] = meterRegistry.timer("datajpa.jdbc.statements", "kind", KINDS[i], "outcome", "error");
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        QueryCountHolder.record(sql); //바인딩 전 SQL ('?' 포함), 배치는 1번으로 집계
+        int kind = kind(sql);
+        (e == null ? success[kind] : error[kind]).record(timeElapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    //SQL 첫 단어로 종류 구분 (정규식, 파싱 없이)
+    private static int kind(String sql) {
+        if (sql == null) {
+            return KINDS.length - 1;
+        }
+        String trimmed = sql.stripLeading();
+        for (int i = 0; i < KINDS.length - 1; i++) {
+            if (trimmed.regionMatches(true, 0, KINDS[i], 0, KINDS[i].length())) {
+                return i;
+            }
+        }
+        return KINDS.length - 1;
+    }
+}
@@ -0,0 +1,179 @@
+package study.datajpa.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 읽기/쓰기 DataSource 라우팅
+ * - readOnly 트랜잭션(@Transactional(readOnly = true), @ReadOnlyQuery)은 복제본(replica) 중 하나로, 나머지는 primary로 보낸다
+ * - 복제본은 주기적으로 헬스 체크하고, 연결이 안 되거나 복제 지연(lag)이 maxLag를 넘으면 후보에서 뺀다 (모두 빠지면 primary)
+ * - 트랜잭션의 readOnly 여부가 정해진 뒤에 커넥션을 얻어야 하므로 반드시 LazyConnectionDataSourceProxy로 감싸서 사용한다
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    public enum Strategy {
+        ROUND_ROBIN, //순서대로 돌아가며
+        LEAST_CONNECTIONS //사용 중인 커넥션이 가장 적은 복제본 (HikariCP 풀만 지원, 그 외는 0으로 간주)
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Strategy strategy;
+    private final Duration maxLag;
+    private final String lagQuery; //복제 지연(초)을 반환하는 쿼리, null이면 연결 여부만 검사
+    private final AtomicInteger sequence = new AtomicInteger();
+    private ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Strategy strategy, Duration maxLag, String lagQuery) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        this.strategy = strategy;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        Replica replica = choose();
+        return replica != null ? replica.name : PRIMARY;
+    }
+
+    private Replica choose() {
+        List<Replica> candidates = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                candidates.add(replica);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (strategy == Strategy.LEAST_CONNECTIONS) {
+            return candidates.stream()
+                    .min(Comparator.comparingInt(Replica::activeConnections))
+                    .get();
+        }
+        return candidates.get(Math.floorMod(sequence.getAndIncrement(), candidates.size()));
+    }
+
+    public void startHealthChecks(Duration interval) {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(2) && !isLagging(replica, connection);
+            } catch (SQLException | RuntimeException e) {
+                log.debug("복제본 [{}] 헬스 체크 실패", replica.name, e);
+                healthy = false;
+            }
+            if (replica.healthy != healthy) {
+                log.warn("복제본 [{}] 상태 변경: {} -> {}", replica.name, replica.healthy ? "UP" : "DOWN", healthy ? "UP" : "DOWN");
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    private boolean isLagging(Replica replica, Connection connection) throws SQLException {
+        if (lagQuery == null) {
+            return false;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            double lagSeconds = rs.next() ? rs.getDouble(1) : 0; //null(복제 중 아님)은 0
+            replica.lagMillis = (long) (lagSeconds * 1000);
+        }
+        return replica.lagMillis > maxLag.toMillis();
+    }
+
+    //복제본 이름 -> UP/DOWN (로그, 모니터링용)
+    public Map<String, Boolean> getReplicaStatus() {
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        replicas.forEach(replica -> status.put(replica.name, replica.healthy));
+        return status;
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            closeQuietly(replica.dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                log.warn("DataSource 종료 실패", e);
+            }
+        }
+    }
+
+    private static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true; //첫 헬스 체크 전까지는 사용 가능으로 간주
+        private volatile long lagMillis;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        int activeConnections() {
+            if (dataSource instanceof HikariDataSource) {
+                HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+                return pool != null ? pool.getActiveConnections() : 0; //풀이 아직 시작되지 않음
+            }
+            return 0;
+        }
+    }
+}
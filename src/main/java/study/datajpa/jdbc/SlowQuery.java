@@ -0,0 +1,37 @@
+package study.datajpa.jdbc;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * 느린 SQL 한 건 (SlowQueryRecorder)
+ * - sql은 바인딩 전('?'), sqlWithValues는 파라미터 값이 들어간 SQL
+ * - plan은 별도 커넥션에서 비동기로 실행한 EXPLAIN 결과 (select만, 아직 실행 전이거나 실패하면 null)
+ */
+@Getter
+public class SlowQuery {
+
+    private final String sql;
+    private final String sqlWithValues;
+    private final String origin; //리포지토리 메서드 (MemberRepository.findMemberFetchJoin) 또는 요청, 범위 밖이면 null
+    private final long elapsedNanos;
+    private final Instant executedAt;
+    private volatile String plan;
+
+    SlowQuery(String sql, String sqlWithValues, String origin, long elapsedNanos, Instant executedAt) {
+        this.sql = sql;
+        this.sqlWithValues = sqlWithValues;
+        this.origin = origin;
+        this.elapsedNanos = elapsedNanos;
+        this.executedAt = executedAt;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
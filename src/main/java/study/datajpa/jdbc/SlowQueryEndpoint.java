@@ -0,0 +1,30 @@
+package study.datajpa.jdbc;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/slowqueries : 가장 느린 SQL 목록, DELETE : 목록 비우기
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryRecorder recorder;
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return recorder.getSlowQueries();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        recorder.clear();
+    }
+}
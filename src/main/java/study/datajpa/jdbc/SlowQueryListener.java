@@ -0,0 +1,29 @@
+package study.datajpa.jdbc;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트 리스너 : 느린 SQL을 바인딩 값, 호출한 리포지토리 메서드와 함께 SlowQueryRecorder에 기록한다
+ * (호출 위치는 현재 스레드의 QueryCount 범위 이름 : RepositoryMetricsRepositoryProxyPostProcessor가 메서드마다 연다)
+ */
+@Component
+@RequiredArgsConstructor
+public class SlowQueryListener extends JdbcEventListener {
+
+    private final SlowQueryRecorder recorder;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!recorder.isSlow(timeElapsedNanos)) {
+            return;
+        }
+        QueryCount scope = QueryCountHolder.current();
+        recorder.record(statementInformation.getSql(), statementInformation::getSqlWithValues,
+                scope != null ? scope.getName() : null, timeElapsedNanos);
+    }
+}
@@ -0,0 +1,144 @@
+package study.datajpa.jdbc;
+
+import com.github.gavlyukovskiy.boot.jdbc.decorator.DecoratedDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 실행 시간이 threshold 이상인 SQL 중 가장 느린 maxEntries 건만 보관한다 (/actuator/slowqueries)
+ * - 빠른 SQL은 실행 시간 비교 한 번으로 끝난다 (바인딩 값 SQL 생성, 락 없음)
+ * - 보관 중인 가장 빠른 건보다 느린 SQL만 들어오고, 가득 차면 가장 빠른 건을 밀어낸다 (min-heap)
+ * - select는 별도 커넥션에서 EXPLAIN을 실행해서 실행 계획을 붙인다 (단일 스레드, 대기열이 차면 버린다)
+ * - EXPLAIN은 p6spy로 감싸기 전의 DataSource에서 실행한다 -> 리스너(SlowQueryListener, QueryCountListener)를 거치지 않는다
+ */
+@Slf4j
+@Component
+public class SlowQueryRecorder implements DisposableBean {
+
+    private final long thresholdNanos;
+    private final int maxEntries;
+    private final Supplier<DataSource> explainDataSource; //null이면 EXPLAIN 생략
+    private final PriorityQueue<SlowQuery> worst = new PriorityQueue<>(Comparator.comparingLong(SlowQuery::getElapsedNanos));
+    private final ThreadPoolExecutor explainExecutor;
+
+    private volatile long floorNanos; //보관 목록이 가득 찼을 때 들어오기 위한 최소 실행 시간
+
+    @Autowired
+    public SlowQueryRecorder(@Value("${datajpa.slow-query.threshold:200ms}") Duration threshold,
+                             @Value("${datajpa.slow-query.max-entries:20}") int maxEntries,
+                             @Value("${datajpa.slow-query.explain:true}") boolean explain,
+                             ObjectProvider<DataSource> dataSource) { //DataSource는 이 리스너로 감싸지므로 지연 조회
+        this(threshold, maxEntries, explain ? () -> unwrap(dataSource.getObject()) : null);
+    }
+
+    //p6spy 데코레이터가 감싼 원래 DataSource (EXPLAIN이 다시 느린 SQL로 기록되거나 쿼리 수에 잡히지 않게)
+    static DataSource unwrap(DataSource dataSource) {
+        if (dataSource instanceof DecoratedDataSource) {
+            return ((DecoratedDataSource) dataSource).getRealDataSource();
+        }
+        return dataSource;
+    }
+
+    public SlowQueryRecorder(Duration threshold, int maxEntries, Supplier<DataSource> explainDataSource) {
+        this.thresholdNanos = threshold.toNanos();
+        this.maxEntries = maxEntries;
+        this.floorNanos = thresholdNanos;
+        this.explainDataSource = explainDataSource;
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(maxEntries),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= floorNanos;
+    }
+
+    /**
+     * @param sqlWithValues 느린 SQL일 때만 만든다 (p6spy getSqlWithValues는 매번 문자열을 조립한다)
+     */
+    public void record(String sql, Supplier<String> sqlWithValues, String origin, long elapsedNanos) {
+        if (!isSlow(elapsedNanos)) {
+            return;
+        }
+        SlowQuery slowQuery = new SlowQuery(sql, sqlWithValues.get(), origin, elapsedNanos, Instant.now());
+        synchronized (worst) {
+            worst.offer(slowQuery);
+            SlowQuery evicted = worst.size() > maxEntries ? worst.poll() : null;
+            if (worst.size() == maxEntries) {
+                floorNanos = Math.max(thresholdNanos, worst.peek().getElapsedNanos());
+            }
+            if (evicted == slowQuery) {
+                return; //그 사이 더 느린 SQL들로 채워졌다
+            }
+        }
+        if (explainDataSource != null && isSelect(sql)) {
+            explainExecutor.execute(() -> slowQuery.setPlan(explain(slowQuery.getSqlWithValues())));
+        }
+    }
+
+    //느린 순서
+    public List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> result;
+        synchronized (worst) {
+            result = new ArrayList<>(worst);
+        }
+        result.sort(Comparator.comparingLong(SlowQuery::getElapsedNanos).reversed());
+        return result;
+    }
+
+    public void clear() {
+        synchronized (worst) {
+            worst.clear();
+            floorNanos = thresholdNanos;
+        }
+    }
+
+    private String explain(String sql) {
+        try (Connection connection = explainDataSource.get().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("explain " + sql)) {
+            StringJoiner plan = new StringJoiner("\n");
+            while (resultSet.next()) {
+                plan.add(resultSet.getString(1));
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            log.debug("EXPLAIN 실패: {}", sql, e);
+            return null;
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql != null && sql.stripLeading().regionMatches(true, 0, "select", 0, "select".length());
+    }
+
+    @Override
+    public void destroy() {
+        explainExecutor.shutdownNow();
+    }
+}
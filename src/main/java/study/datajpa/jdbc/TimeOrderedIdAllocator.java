@@ -0,0 +1,50 @@
+package study.datajpa.jdbc;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간 순서 64비트 식별자 : [부호 1비트 | 2020-11-01부터 흐른 밀리초 41비트 | 노드 10비트 | 순번 12비트]
+ * - 항상 증가하므로 PK 인덱스의 마지막 페이지에만 추가된다 (랜덤 UUID처럼 인덱스 중간에 끼워넣지 않는다)
+ * - (시각, 순번)을 AtomicLong 하나에 담아 CAS로 증가시키므로 락이 없다
+ *   같은 밀리초에 4096개를 넘게 쓰거나 시계가 뒤로 가면 다음 밀리초를 미리 빌려 쓴다 -> 중복 없이 계속 증가
+ * - 노드 번호(0 ~ 1023)는 노드마다 달라야 한다
+ */
+public class TimeOrderedIdAllocator implements IdAllocator {
+
+    static final long EPOCH = Instant.parse("2020-11-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final Clock clock;
+    private final AtomicLong state = new AtomicLong(); //(밀리초 << SEQUENCE_BITS) | 순번
+
+    public TimeOrderedIdAllocator(int node) {
+        this(node, Clock.systemUTC());
+    }
+
+    TimeOrderedIdAllocator(int node, Clock clock) {
+        if (node < 0 || node >= 1 << NODE_BITS) {
+            throw new IllegalArgumentException("노드 번호는 0 ~ " + ((1 << NODE_BITS) - 1) + " 이어야 합니다: " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId(String name) {
+        while (true) {
+            long current = state.get();
+            long now = clock.millis() - EPOCH;
+            long next = now > current >>> SEQUENCE_BITS
+                    ? now << SEQUENCE_BITS
+                    : current + 1; //순번이 넘치면 밀리초 자리로 올라간다
+            if (state.compareAndSet(current, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+}
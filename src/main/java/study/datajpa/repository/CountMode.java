@@ -0,0 +1,14 @@
+package study.datajpa.repository;
+
+/**
+ * Page 조회 시 전체 데이터 수(totalElements)를 구하는 방법
+ * - 어떤 방식이든 응답은 같은 Page 형식(JSON)으로 내려간다
+ */
+public enum CountMode {
+
+    EXACT,      //매번 count 쿼리 실행 (스프링 데이터 JPA 기본 동작)
+    CACHED,     //(count 쿼리, 파라미터) 별로 결과를 TTL 동안 캐시 -> 전체 수가 TTL 만큼 늦게 반영될 수 있다
+    ESTIMATED,  //DB 테이블 통계의 추정 row 수 사용 -> 조건 없는 전체 조회에만 적용, 조건이 있으면 EXACT로 동작
+    HAS_NEXT,   //count 쿼리 없이 한 건 더 조회해서 다음 페이지 여부만 판단 (Slice 방식) -> totalElements는 '최소' 데이터 수
+    PARALLEL    //count 쿼리를 전용 커넥션 풀(page-count)에서 content 쿼리와 동시에 실행 -> 커밋된 데이터만 센다, 쓰기 트랜잭션 안에서는 EXACT
+}
@@ -2,6 +2,8 @@ package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import study.datajpa.entity.Item;
+import study.datajpa.repository.support.UpsertRepository;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+//식별자 타입은 Item의 @Id 타입(String)과 같아야 한다, 대량 등록은 UpsertRepository (select 없이 MERGE)
+public interface ItemRepository extends JpaRepository<Item, String>, UpsertRepository<Item> {
 }
@@ -0,0 +1,73 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(Seek) 페이징 커서
+ * : 마지막으로 조회한 (username, member_id)를 기억해 두었다가 다음 페이지를 그 다음 위치부터 조회한다
+ * - offset을 사용하지 않으므로 몇 번째 페이지든 인덱스로 시작 위치를 바로 찾는다 (깊은 페이지도 응답 시간이 일정)
+ * - 클라이언트에는 Base64로 인코딩한 불투명(opaque) 토큰으로 내려준다
+ * - username이 null인 회원은 맨 앞(nulls first)에 정렬되고, 마지막 회원의 username이 null이면 커서에도 null로 남는다
+ */
+@Getter
+public class KeysetCursor {
+
+    public static final int MAX_SIZE = 2000; //application.yml의 max-page-size와 맞춘다
+
+    private final String username; //마지막 회원의 username (null일 수 있다, 첫 페이지 여부는 id로 판단)
+    private final Long id;
+    private final int size;
+
+    private KeysetCursor(String username, Long id, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size는 1 이상이어야 합니다: " + size);
+        }
+        this.username = username;
+        this.id = id;
+        this.size = Math.min(size, MAX_SIZE);
+    }
+
+    public static KeysetCursor first(int size) {
+        return new KeysetCursor(null, null, size);
+    }
+
+    public static KeysetCursor after(Member last, int size) {
+        return new KeysetCursor(last.getUsername(), last.getId(), size);
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    /**
+     * 토큰 형식: Base64URL("{id}:{username}") -> username에 ':'가 있어도 첫 번째 ':'까지만 id로 읽는다
+     * username이 null이면 Base64URL("{id}") -> 문자열 "null"과 구분된다
+     */
+    public String toToken() {
+        if (isFirst()) {
+            return null;
+        }
+        String raw = username == null ? String.valueOf(id) : id + ":" + username;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor fromToken(String token, int size) {
+        if (token == null || token.isEmpty()) {
+            return first(size);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                return new KeysetCursor(null, Long.valueOf(raw), size);
+            }
+            return new KeysetCursor(raw.substring(separator + 1), Long.valueOf(raw.substring(0, separator)), size);
+        } catch (IllegalArgumentException e) { //NumberFormatException 포함
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다: " + token, e);
+        }
+    }
+}
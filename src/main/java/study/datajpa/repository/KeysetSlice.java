@@ -0,0 +1,31 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 키셋 페이징 결과
+ * : Slice처럼 count 쿼리 없이 다음 페이지 존재 여부(hasNext)만 알려주고, 다음 페이지 조회용 커서 토큰을 함께 내려준다
+ */
+@Getter
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+    private final boolean hasNext;
+    private final String nextCursor; //마지막 페이지면 null
+
+    public KeysetSlice(List<T> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    //Page.map()처럼 엔티티를 DTO로 변환할 때 사용, 커서는 엔티티 기준으로 이미 만들어져 있으므로 그대로 유지
+    public <U> KeysetSlice<U> map(Function<? super T, ? extends U> converter) {
+        List<U> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new KeysetSlice<>(converted, hasNext, nextCursor);
+    }
+}
@@ -3,11 +3,13 @@ package study.datajpa.repository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.support.QueryStreams;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Created by frenchline707@gmail.com on 2020-11-08
@@ -34,6 +36,11 @@ public class MemberJpaRepository { //순수 JPA 기반 리포지토리
                 .getResultList();
     }
 
+    //전체 회원을 한 건씩 처리 (배치, 엑스포트) : 트랜잭션 안에서 try-with-resources로 사용
+    public Stream<Member> streamAll() {
+        return QueryStreams.streamDetached(em, em.createQuery("select m from Member m", Member.class), QueryStreams.DEFAULT_FETCH_SIZE);
+    }
+
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -85,13 +92,13 @@ public class MemberJpaRepository { //순수 JPA 기반 리포지토리
 
     //회원의 나이를 한번에 변경하는 쿼리 예제
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        return em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
                             .setParameter("age", age)
                             .executeUpdate();
     }
 
     public int bulkAgePlusX(int starting, int x) {
-        String qlString = "update Member m set m.age = m.age + :x where m.age >= :starting";
+        String qlString = "update Member m set m.age = m.age + :x, m.version = m.version + 1 where m.age >= :starting";
         int resultCount = em.createQuery(qlString)
                 .setParameter("x", x)
                 .setParameter("starting", starting)
@@ -2,10 +2,13 @@ package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.support.QueryStreams;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 참고: 항상 사용자 정의 리포지토리가 필요한 것은 아니다. 그냥 임의의 리포지토리를 만들어도 된다.
@@ -22,4 +25,15 @@ public class MemberQueryRepository {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    //findAllMembers()의 스트림 버전 : 처리가 끝난 엔티티는 detach 되어 메모리가 일정하게 유지된다
+    public Stream<Member> streamAllMembers() {
+        return QueryStreams.streamDetached(em, em.createQuery("select m from Member m", Member.class), QueryStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    //DTO로 바로 조회하면 영속성 컨텍스트를 거치지 않는다 (엑스포트 용도)
+    public Stream<MemberDto> streamAllMemberDtos() {
+        String jpql = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t";
+        return QueryStreams.stream(em.createQuery(jpql, MemberDto.class), QueryStreams.DEFAULT_FETCH_SIZE);
+    }
 }
@@ -12,14 +12,18 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.jdbc.QueryBudget;
+import study.datajpa.repository.support.ReadOnlyQuery;
 
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by frenchline707@gmail.com on 2020-11-08
@@ -62,6 +66,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findByUsernameIn(List<String> names); //메소드 이름 쿼리로 IN절 조회
 
     List<Member> findListByUsername(String username); //컬렉션
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true")) //쿼리 캐시: 결과 식별자만 캐시하고 엔티티는 2차 캐시에서 꺼낸다
     Member findMemberByUsername(String username); //단건
     Optional<Member> findOptionalMemberByUsername(String username); //단건 Optional
 
@@ -71,6 +76,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      * * 정렬 조건: 이름으로 내림차순(desc)
      * * 페이징 조건: 첫 번째 페이지, 페이지당 보여줄 데이터는 3건
      */
+    @ReadOnlyQuery
     @Query(value = "select m from Member m left join m.team t where m.age = :age", countQuery = "select count(m) from Member m where m.age = :age")
     Page<Member> findByAge(@Param("age") int age, Pageable pageable); //count 쿼리 사용
 
@@ -99,18 +105,41 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     /**
      * 벌크 업데이트 (벌크성 수정 쿼리)
+     * 2차 캐시 무효화: JPQL 벌크 연산이 실행되면 하이버네이트가 member 테이블을 사용하는 캐시를 자동으로 정리한다
+     * - 엔티티 영역(study.datajpa.entity.Member) 제거, 쿼리 캐시는 member 테이블 타임스탬프 갱신으로 무효화
      */
     @Modifying(clearAutomatically = true) //벌크 연산 이후 영속성 컨텍스트를 비운다 (쿼리가 나간 이후 em.clear()을 자동으로 해준다)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     @Modifying(clearAutomatically = true) //벌크 연산 이후 영속성 컨텍스트를 비운다 (쿼리가 나간 이후 em.clear()을 자동으로 해준다)
-    @Query("update Member m set m.age = m.age + :x where m.age >= :starting")
+    @Query("update Member m set m.age = m.age + :x, m.version = m.version + 1 where m.age >= :starting")
     int bulkAgePlusX(@Param("starting") int starting, @Param("x") int x);
 
+    //목록 조회 : 조회한 엔티티를 수정하지 않으므로 스냅샷/자동 flush 없이 읽기 전용으로 실행
+    @Override
+    @ReadOnlyQuery
+    Page<Member> findAll(Pageable pageable);
+
+    /**
+     * 비동기 조회 (@EnableAsync, AsyncConfig.repositoryExecutor) : 독립적인 조회 여러 개를 동시에 실행할 때 사용
+     * - 결과는 다른 스레드의 트랜잭션에서 만들어지므로 지연 로딩 없이 쓸 수 있도록 team을 함께 조회한다
+     */
+    @Async("repositoryExecutor")
+    @ReadOnlyQuery
+    @EntityGraph(attributePaths = {"team"})
+    @Query(value = "select m from Member m", countQuery = "select count(m) from Member m")
+    CompletableFuture<Page<Member>> findAllAsync(Pageable pageable);
+
+    @Async("repositoryExecutor")
+    @ReadOnlyQuery
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    CompletableFuture<List<MemberDto>> findMemberDtoAsync(Pageable pageable);
+
     /**
      * style 1. fetch join으로 N + 1 문제 해결 (JPA 기본 제공)
      */
+    @QueryBudget(1) //fetch join이 빠지면 N + 1로 SQL 수가 늘어나므로 경고
     @Query("select m from Member m left join fetch m.team") //fetch 키워드: Member 조회 시 연관된(객체 그래프) Team도 쿼리 한번에 다 끌고 온다
     List<Member> findMemberFetchJoin();
 
@@ -124,6 +153,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     /**
      * style 3. JPQL + EntityGraph : JPQL을 짰는데 fetch join만 살짝 추가하고 싶은 경우
      */
+    @QueryBudget(1)
     @EntityGraph(attributePaths = {"team"})
     @Query("select m from Member m")
     List<Member> findMemberEntityGraph();
@@ -135,6 +165,11 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 //    @EntityGraph("Member.team") //엔티티에 @NamedEntityGraph를 정의한 것을 사용할 수도 있다 (JPA 2.2+)
     List<Member> findEntityGraphByUsername(@Param("username") String username);
 
+    @QueryBudget(1)
+    @EntityGraph("Member.team") //엔티티에 정의한 @NamedEntityGraph 사용 -> style 1~3과 성능 비교 (src/jmh)
+    @Query("select m from Member m")
+    List<Member> findMemberNamedEntityGraph();
+
     /**
      * JPA Hint & Lock
      */
@@ -161,8 +196,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     //클래스 기반의 Projection
     List<UsernameOnlyDto> findProjectionsDtoByUsername(@Param("username") String username);
 
-    //동적 Projection : 제네릭 타입 지정 가능
-    <T> List<T> findProjectionsByUsername(@Param("username") String username, Class<T> type);
+    //동적 Projection : 제네릭 타입 지정 가능 -> MemberRepositoryCustom.findProjectionsByUsername (필요한 컬럼만 조회)
 
     //스프링 데이터 JPA 네이티브 쿼리
     @Query(value = "select * from member where username = ?", nativeQuery = true)
@@ -170,7 +204,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
     //스프링 데이터 JPA 네이티브 쿼리 + 인터페이스 기반 Projection 활용 : 페이징 처리 가능
     @Query(value = "select m.member_id as id, m.username, t.name as teamName " +
-            "from member m left join team t",
+            "from member m left join team t on m.team_id = t.team_id", //on 절이 없으면 H2는 모든 팀과 조인(cross join)한다
             countQuery = "select count(*) as totalCount from member",
             nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
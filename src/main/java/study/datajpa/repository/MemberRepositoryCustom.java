@@ -1,8 +1,18 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.support.BulkUpdateProgressListener;
+import study.datajpa.repository.support.ParameterizedSpecification;
+import study.datajpa.repository.support.ReadOnlyQuery;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 사용자 정의 인터페이스
@@ -10,4 +20,57 @@ import java.util.List;
  */
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+    Stream<Member> streamMemberCustom(); //트랜잭션 안에서 try-with-resources로 사용
+
+    //목록 조회(키셋, 페이징)는 읽기 전용으로 실행 (@ReadOnlyQuery)
+
+    //키셋(Seek) 페이징 : where (username, id) > (?, ?) order by username, id limit ?
+    @ReadOnlyQuery
+    KeysetSlice<Member> findMemberKeyset(KeysetCursor cursor);
+    @ReadOnlyQuery
+    KeysetSlice<Member> findByAge(int age, KeysetCursor cursor);
+
+    //count 전략을 선택할 수 있는 페이징 (EXACT, CACHED, ESTIMATED, HAS_NEXT)
+    @ReadOnlyQuery
+    Page<Member> findAll(Pageable pageable, CountMode countMode);
+    @ReadOnlyQuery
+    Page<Member> findByAge(int age, Pageable pageable, CountMode countMode);
+    @ReadOnlyQuery
+    Page<Member> findByUsername(String username, Pageable pageable, CountMode countMode);
+    //@Query로 선언한 Page 메서드도 count 전략을 선택할 수 있다 (선언된 JPQL, countQuery를 그대로 사용)
+    @ReadOnlyQuery
+    Page<Member> findMemberAllCountBy(Pageable pageable, CountMode countMode);
+    @ReadOnlyQuery
+    Page<Member> findMemberNoConfigCountQuery(Pageable pageable, CountMode countMode);
+    @ReadOnlyQuery
+    Page<Member> findMemberNoConfigCountQuery2(Pageable pageable, CountMode countMode);
+    @ReadOnlyQuery
+    Page<Member> findMemberConfigCountQuery(Pageable pageable, CountMode countMode);
+
+    //모양이 같은 Specification은 캐시된 JPQL로 실행 (MemberSpec, SpecificationQueryCache)
+    List<Member> findAllCached(ParameterizedSpecification<Member> spec);
+    Page<Member> findAllCached(ParameterizedSpecification<Member> spec, Pageable pageable);
+
+    //Query By Example : 연관 엔티티는 left join, 여러 Example은 하나의 OR 쿼리로 조회 (ExampleSpecificationBuilder)
+    List<Member> findAllByExample(Example<Member> example);
+    List<Member> findAllByExamples(Collection<Example<Member>> examples);
+
+    //동적 Projection : 중첩 Closed Projection도 필요한 컬럼만 select (연관 엔티티 전체 컬럼 조회 X, ProjectionQuerySupport)
+    <T> List<T> findProjectionsByUsername(String username, Class<T> type);
+
+    //네이티브 쿼리 DTO 조회 : findByNativeProjection과 같은 결과를 인터페이스 Projection 없이 컬럼 인덱스로 바로 매핑 (NativeQueryExecutor)
+    @ReadOnlyQuery
+    Page<MemberDto> findMemberDtoNative(Pageable pageable, boolean skipCount); //skipCount : count 쿼리 없이 다음 페이지 여부만 판단
+    Stream<MemberDto> streamMemberDtoNative(int fetchSize); //트랜잭션 안에서 try-with-resources로 사용
+    long forEachMemberDtoNative(int fetchSize, Consumer<? super MemberDto> action); //DTO 한 개를 재사용하므로 보관하려면 복사
+
+    //나이 변경 (read-modify-write) : 낙관적 락(@Version) + 충돌 시 재시도 vs 비관적 락(select ... for update)
+    Member addAgeOptimistic(Long id, int delta); //트랜잭션 밖에서 호출 (시도마다 새 트랜잭션)
+    Member addAgePessimistic(Long id, int delta);
+
+    //청크 단위 벌크 업데이트 : bulkAgePlusX를 chunkSize 건씩 나누어 청크마다 커밋 (쓰기 트랜잭션 밖에서 호출, 안에서 호출하면 IllegalStateException)
+    long bulkAgePlusChunked(int starting, int x, int chunkSize, BulkUpdateProgressListener listener);
+
+    //대량 등록 : batchSize 단위로 JDBC 배치 INSERT 후 flush/clear (저장한 엔티티는 준영속 상태가 된다)
+    void saveAllBatched(Iterable<Member> members, int batchSize);
 }
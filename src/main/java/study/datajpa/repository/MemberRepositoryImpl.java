@@ -1,10 +1,35 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.support.BulkUpdateProgressListener;
+import study.datajpa.repository.support.ChunkedBulkUpdater;
+import study.datajpa.repository.support.ExampleSpecificationBuilder;
+import study.datajpa.repository.support.NativeQueryExecutor;
+import study.datajpa.repository.support.OptimisticRetryExecutor;
+import study.datajpa.repository.support.PageCountSupport;
+import study.datajpa.repository.support.ParameterizedSpecification;
+import study.datajpa.repository.support.ProjectionQuerySupport;
+import study.datajpa.repository.support.QueryStreams;
+import study.datajpa.repository.support.SpecificationQueryCache;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 사용자 정의 인터페이스 구현 클래스
@@ -12,11 +37,250 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    //JPQL은 (m.username, m.id) > (:username, :id) 같은 행 값 비교를 지원하지 않으므로 풀어서 작성한다
+    private static final String KEYSET_CONDITION = "(m.username > :lastUsername or (m.username = :lastUsername and m.id > :lastId))";
+    //마지막 회원의 username이 null : 남은 null 회원(id 순) 다음에 null이 아닌 회원 전부 ('m.username > null'은 어떤 행과도 맞지 않는다)
+    private static final String KEYSET_NULL_CONDITION = "((m.username is null and m.id > :lastId) or m.username is not null)";
+    private static final String KEYSET_ORDER = " order by m.username asc nulls first, m.id asc"; //(username, member_id) 인덱스 순서와 일치, null 위치는 DB마다 다르므로 명시
+
+    //select 순서 : 1 = member_id, 2 = username, 3 = team.name (MemberDto 생성자 순서와 같다)
+    private static final String MEMBER_DTO_SQL = "select m.member_id, m.username, t.name from member m left join team t on m.team_id = t.team_id";
+    private static final String MEMBER_DTO_COUNT_SQL = "select count(*) from member"; //left join은 회원 수를 바꾸지 않으므로 조인 생략
+    private static final RowMapper<MemberDto> MEMBER_DTO_MAPPER = (rs, rowNum) -> new MemberDto(rs.getLong(1), rs.getString(2), rs.getString(3));
+    private static final NativeQueryExecutor.RowBinder<MemberDto> MEMBER_DTO_BINDER = (rs, dto) -> {
+        dto.setId(rs.getLong(1));
+        dto.setUsername(rs.getString(2));
+        dto.setTeamName(rs.getString(3));
+    };
+
     private final EntityManager em;
+    private final PageCountSupport pageCountSupport;
+    private final ChunkedBulkUpdater chunkedBulkUpdater;
+    private final ProjectionQuerySupport projectionQuerySupport;
+    private final SpecificationQueryCache specificationQueryCache;
+    private final ExampleSpecificationBuilder exampleSpecificationBuilder;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final NativeQueryExecutor nativeQueryExecutor;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    public Stream<Member> streamMemberCustom() {
+        return QueryStreams.streamDetached(em, em.createQuery("select m from Member m", Member.class), QueryStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    @Override
+    public KeysetSlice<Member> findMemberKeyset(KeysetCursor cursor) {
+        String jpql = "select m from Member m";
+        if (!cursor.isFirst()) {
+            jpql += " where " + keysetCondition(cursor);
+        }
+        return fetchKeyset(em.createQuery(jpql + KEYSET_ORDER, Member.class), cursor);
+    }
+
+    @Override
+    public KeysetSlice<Member> findByAge(int age, KeysetCursor cursor) {
+        String jpql = "select m from Member m where m.age = :age";
+        if (!cursor.isFirst()) {
+            jpql += " and " + keysetCondition(cursor);
+        }
+        TypedQuery<Member> query = em.createQuery(jpql + KEYSET_ORDER, Member.class)
+                .setParameter("age", age);
+        return fetchKeyset(query, cursor);
+    }
+
+    @Override
+    public Page<Member> findAll(Pageable pageable, CountMode countMode) {
+        TypedQuery<Member> contentQuery = em.createQuery(QueryUtils.applySorting("select m from Member m", pageable.getSort(), "m"), Member.class);
+        TypedQuery<Long> countQuery = em.createQuery("select count(m) from Member m", Long.class);
+        return pageCountSupport.getPage(contentQuery, countQuery, Member.class, pageable, countMode);
+    }
+
+    @Override
+    public Page<Member> findByAge(int age, Pageable pageable, CountMode countMode) {
+        TypedQuery<Member> contentQuery = em.createQuery(QueryUtils.applySorting("select m from Member m where m.age = :age", pageable.getSort(), "m"), Member.class)
+                .setParameter("age", age);
+        TypedQuery<Long> countQuery = em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                .setParameter("age", age);
+        return pageCountSupport.getPage(contentQuery, countQuery, Member.class, pageable, countMode);
+    }
+
+    @Override
+    public Page<Member> findByUsername(String username, Pageable pageable, CountMode countMode) {
+        TypedQuery<Member> contentQuery = em.createQuery(QueryUtils.applySorting("select m from Member m where m.username = :username", pageable.getSort(), "m"), Member.class)
+                .setParameter("username", username);
+        TypedQuery<Long> countQuery = em.createQuery("select count(m) from Member m where m.username = :username", Long.class)
+                .setParameter("username", username);
+        return pageCountSupport.getPage(contentQuery, countQuery, Member.class, pageable, countMode);
+    }
+
+    @Override
+    public Page<Member> findMemberAllCountBy(Pageable pageable, CountMode countMode) {
+        return pageCountSupport.getPage(MemberRepository.class, "findMemberAllCountBy", Member.class, pageable, countMode);
+    }
+
+    @Override
+    public Page<Member> findMemberNoConfigCountQuery(Pageable pageable, CountMode countMode) {
+        return pageCountSupport.getPage(MemberRepository.class, "findMemberNoConfigCountQuery", Member.class, pageable, countMode);
+    }
+
+    @Override
+    public Page<Member> findMemberNoConfigCountQuery2(Pageable pageable, CountMode countMode) {
+        return pageCountSupport.getPage(MemberRepository.class, "findMemberNoConfigCountQuery2", Member.class, pageable, countMode);
+    }
+
+    @Override
+    public Page<Member> findMemberConfigCountQuery(Pageable pageable, CountMode countMode) {
+        return pageCountSupport.getPage(MemberRepository.class, "findMemberConfigCountQuery", Member.class, pageable, countMode);
+    }
+
+    /**
+     * Specification 조회 : Criteria 트리를 만들지 않고 모양(shape)별로 캐시된 JPQL에 값만 바인딩한다
+     */
+    @Override
+    public List<Member> findAllCached(ParameterizedSpecification<Member> spec) {
+        return specificationQueryCache.createQuery(em, Member.class, spec, Sort.unsorted()).getResultList();
+    }
+
+    @Override
+    public Page<Member> findAllCached(ParameterizedSpecification<Member> spec, Pageable pageable) {
+        TypedQuery<Member> contentQuery = specificationQueryCache.createQuery(em, Member.class, spec, pageable.getSort());
+        TypedQuery<Long> countQuery = specificationQueryCache.createCountQuery(em, Member.class, spec);
+        return pageCountSupport.getPage(contentQuery, countQuery, Member.class, pageable, CountMode.EXACT);
+    }
+
+    /**
+     * Query By Example 조회 : findAll(Example)과 달리 team 조건을 left join으로 만들고, 모양이 같은 Example은 캐시된 JPQL을 재사용한다
+     * select m from Member m left join m.team j_team where (m.username = :p0) and (j_team.name = :p1)
+     */
+    @Override
+    public List<Member> findAllByExample(Example<Member> example) {
+        return findAllCached(exampleSpecificationBuilder.build(example));
+    }
+
+    //Example마다 쿼리를 실행하지 않고 (조건1) or (조건2) ... 한 번으로 조회
+    @Override
+    public List<Member> findAllByExamples(Collection<Example<Member>> examples) {
+        return findAllCached(exampleSpecificationBuilder.anyOf(examples));
+    }
+
+    /**
+     * 동적 Projection 조회 : 파생 쿼리와 결과는 같고, 중첩 Closed Projection이면 select 절에 필요한 컬럼만 들어간다
+     * select m.username, t.name from member m left outer join team t on m.team_id = t.team_id where m.username = ?
+     */
+    @Override
+    public <T> List<T> findProjectionsByUsername(String username, Class<T> type) {
+        return projectionQuerySupport.findAll(Member.class, type, MemberSpec.username(username));
+    }
+
+    /**
+     * 네이티브 쿼리 DTO 조회 : Object[] -> Tuple -> 프록시(MemberProjection) 대신 rs.getXxx(인덱스)로 MemberDto를 바로 만든다
+     * select m.member_id, m.username, t.name from member m left join team t on m.team_id = t.team_id order by m.member_id limit ? offset ?
+     */
+    @Override
+    public Page<MemberDto> findMemberDtoNative(Pageable pageable, boolean skipCount) {
+        return nativeQueryExecutor.page(MEMBER_DTO_SQL + " order by m.member_id", MEMBER_DTO_COUNT_SQL, pageable, skipCount, MEMBER_DTO_MAPPER);
+    }
+
+    @Override
+    public Stream<MemberDto> streamMemberDtoNative(int fetchSize) {
+        return nativeQueryExecutor.stream(MEMBER_DTO_SQL, fetchSize, MEMBER_DTO_MAPPER);
+    }
+
+    //전체 행을 MemberDto 한 개에 덮어쓰면서 처리 -> 행 수와 무관하게 DTO 할당 1회
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachMemberDtoNative(int fetchSize, Consumer<? super MemberDto> action) {
+        return nativeQueryExecutor.forEach(MEMBER_DTO_SQL, fetchSize, new MemberDto(), MEMBER_DTO_BINDER, action);
+    }
+
+    /**
+     * 낙관적 락 : 조회할 때 락을 잡지 않고 커밋할 때 update ... where member_id = ? and version = ? 로 충돌을 확인한다
+     * 충돌하면 OptimisticRetryExecutor가 새 트랜잭션에서 조회부터 다시 실행한다
+     */
+    @Override
+    public Member addAgeOptimistic(Long id, int delta) {
+        return optimisticRetryExecutor.execute("Member.addAge", () -> addAge(em.find(Member.class, id), delta));
+    }
+
+    //비관적 락 : select ... for update로 행을 잠그고 커밋할 때까지 다른 수정은 기다린다 (findLockByUsername과 같은 방식)
+    @Override
+    @Transactional
+    public Member addAgePessimistic(Long id, int delta) {
+        return addAge(em.find(Member.class, id, LockModeType.PESSIMISTIC_WRITE), delta);
+    }
+
+    private Member addAge(Member member, int delta) {
+        if (member == null) {
+            throw new IllegalArgumentException("회원이 없습니다");
+        }
+        member.setAge(member.getAge() + delta);
+        return member;
+    }
+
+    /**
+     * 청크 단위 벌크 업데이트
+     * - bulkAgePlusX와 같은 수정을 식별자 순서로 chunkSize 건씩 나누어 실행하고 청크마다 커밋한다
+     * - @Modifying(clearAutomatically = true)처럼 영속성 컨텍스트 전체를 비우지 않고 수정된 회원만 캐시에서 제거한다
+     */
+    @Override
+    public long bulkAgePlusChunked(int starting, int x, int chunkSize, BulkUpdateProgressListener listener) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("starting", starting);
+        parameters.put("x", x);
+        return chunkedBulkUpdater.execute(Member.class,
+                "select m.id from Member m where m.age >= :starting and m.id > :lastId order by m.id",
+                "update member set age = age + :x, version = version + 1 where member_id in (:ids) and age >= :starting", //조회 이후 변경된 회원은 다시 한번 조건으로 거른다, 낙관적 락 버전도 올린다
+                parameters, chunkSize, listener);
+    }
+
+    /**
+     * 대량 등록 (벌크 INSERT)
+     * 1. pooled 시퀀스(allocationSize = 100)로 식별자를 메모리에서 할당 -> 건마다 시퀀스 조회 X
+     * 2. hibernate.jdbc.batch_size + order_inserts 설정으로 INSERT를 JDBC 배치로 묶어서 전송
+     * 3. batchSize마다 flush() + clear() -> 영속성 컨텍스트(1차 캐시)가 끝없이 커지지 않도록 비운다
+     * 참고: batchSize는 hibernate.jdbc.batch_size와 같은 값(또는 배수)을 사용하는 것이 좋다
+     */
+    @Override
+    @Transactional
+    public void saveAllBatched(Iterable<Member> members, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize는 1 이상이어야 합니다: " + batchSize);
+        }
+        int count = 0;
+        for (Member member : members) {
+            em.persist(member);
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private static String keysetCondition(KeysetCursor cursor) {
+        return cursor.getUsername() == null ? KEYSET_NULL_CONDITION : KEYSET_CONDITION;
+    }
+
+    private KeysetSlice<Member> fetchKeyset(TypedQuery<Member> query, KeysetCursor cursor) {
+        if (!cursor.isFirst()) {
+            query.setParameter("lastId", cursor.getId());
+            if (cursor.getUsername() != null) {
+                query.setParameter("lastUsername", cursor.getUsername());
+            }
+        }
+        List<Member> result = query
+                .setMaxResults(cursor.getSize() + 1) //한 건 더 조회해서 다음 페이지 존재 여부를 판단 (count 쿼리 X)
+                .getResultList();
+
+        boolean hasNext = result.size() > cursor.getSize();
+        List<Member> content = hasNext ? result.subList(0, cursor.getSize()) : result;
+        String nextCursor = hasNext ? KeysetCursor.after(content.get(content.size() - 1), cursor.getSize()).toToken() : null;
+        return new KeysetSlice<>(content, hasNext, nextCursor);
+    }
 }
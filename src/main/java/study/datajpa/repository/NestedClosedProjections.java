@@ -19,6 +19,7 @@ public interface NestedClosedProjections {
  * Ex) 회원 이름(username)을 가져올 때 연관된 팀 이름 까지 조회
  * - 프로젝션 대상이 root 엔티티면 유용하다.
  * - 프로젝션 대상이 root 엔티티를 넘어가면 JPQL SELECT 최적화가 안된다!
+ *   -> MemberRepository.findProjectionsByUsername(username, type)은 ProjectionQuerySupport로 필요한 컬럼만 조회한다 (아래는 파생 쿼리의 SQL)
  *
  *     select
  *         member0_.username as col_0_0_, //정확히 타겟팅
@@ -1,7 +1,14 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.scheduling.annotation.Async;
 import study.datajpa.entity.Team;
+import study.datajpa.repository.support.ReadOnlyQuery;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by frenchline707@gmail.com on 2020-11-09
@@ -10,4 +17,10 @@ import study.datajpa.entity.Team;
  */
 
 public interface TeamRepository extends JpaRepository<Team, Long> { //엔티티 타입, 식별자(PK) 타입
+
+    //비동기 조회 (AsyncConfig.repositoryExecutor), 작업 스레드에는 트랜잭션이 없으므로 readOnly 트랜잭션으로 실행
+    @ReadOnlyQuery
+    @Async("repositoryExecutor")
+    @Query(value = "select t from Team t", countQuery = "select count(t) from Team t")
+    CompletableFuture<Page<Team>> findAllAsync(Pageable pageable);
 }
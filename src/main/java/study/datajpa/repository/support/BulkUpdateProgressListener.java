@@ -0,0 +1,19 @@
+package study.datajpa.repository.support;
+
+/**
+ * 청크 단위 벌크 업데이트 진행 상황 콜백 (청크가 커밋될 때마다 호출)
+ */
+@FunctionalInterface
+public interface BulkUpdateProgressListener {
+
+    BulkUpdateProgressListener NONE = (chunk, updated, totalUpdated, lastId) -> {
+    };
+
+    /**
+     * @param chunk        청크 번호 (1부터 시작)
+     * @param updated      이번 청크에서 수정된 row 수
+     * @param totalUpdated 지금까지 수정된 전체 row 수
+     * @param lastId       이번 청크의 마지막 식별자 (다음 청크는 이 값 다음부터)
+     */
+    void onChunk(int chunk, int updated, long totalUpdated, Long lastId);
+}
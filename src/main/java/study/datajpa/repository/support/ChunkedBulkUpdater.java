@@ -0,0 +1,187 @@
+package study.datajpa.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 청크 단위 벌크 업데이트
+ * : 한 번의 거대한 UPDATE 대신 식별자(PK) 순서로 chunkSize 건씩 나누어 수정하고 청크마다 커밋한다
+ * - 락을 잡는 범위와 시간이 청크 크기로 제한되므로 OLTP 트래픽을 오래 막지 않는다
+ * - em.clear()로 영속성 컨텍스트 전체를 비우는 대신, 수정된 식별자만 1차 캐시/2차 캐시에서 제거한다
+ * 주의: 청크마다 새 트랜잭션(REQUIRES_NEW)으로 커밋되므로 중간에 실패하면 이미 커밋된 청크는 롤백되지 않는다
+ * 주의: 쓰기 트랜잭션 밖(트랜잭션 없음, 읽기 전용 트랜잭션)에서 호출해야 한다
+ *   - 호출한 트랜잭션이 이미 수정한 행의 락을 청크 트랜잭션이 기다리게 된다 (호출한 쪽은 청크가 끝나기를 기다리므로 풀리지 않는다)
+ *   - 수정된 엔티티를 1차 캐시에서 제거할 때 호출한 쪽의 flush 되지 않은 변경이 사라진다
+ *   -> 쓰기 트랜잭션 안에서 호출하거나, 읽기 전용 트랜잭션의 영속성 컨텍스트에 entityClass의 변경이 남아 있으면 IllegalStateException
+ */
+@Slf4j
+@Component
+public class ChunkedBulkUpdater {
+
+    //하이버네이트가 테이블 이름으로 2차 캐시 영역 전체를 비우지 않도록 가상의 쿼리 공간을 지정한다
+    private static final String BULK_QUERY_SPACE = "chunked_bulk_update";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate chunkTransaction;
+
+    public ChunkedBulkUpdater(PlatformTransactionManager transactionManager) {
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @param entityClass 수정 대상 엔티티 (캐시 제거 대상)
+     * @param idQuery     수정할 식별자 조회 JPQL, :lastId 다음부터 식별자 순으로 정렬해야 한다
+     *                    ex) select m.id from Member m where m.age >= :starting and m.id > :lastId order by m.id
+     * @param updateSql   청크 수정 네이티브 SQL, :ids로 이번 청크의 식별자 목록을 받는다
+     *                    ex) update member set age = age + :x where member_id in (:ids) and age >= :starting
+     * @param parameters  두 쿼리에서 사용하는 나머지 파라미터 (각 쿼리에 있는 파라미터만 바인딩)
+     * @return 수정된 전체 row 수
+     */
+    public long execute(Class<?> entityClass, String idQuery, String updateSql, Map<String, ?> parameters,
+                        int chunkSize, BulkUpdateProgressListener listener) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다: " + chunkSize);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("청크 단위 벌크 업데이트는 쓰기 트랜잭션 밖에서 호출해야 합니다 (청크마다 별도 트랜잭션으로 커밋)");
+        }
+        //호출한 쪽의 영속성 컨텍스트 (청크 트랜잭션이 실행되는 동안은 보류 상태)
+        SessionImplementor callerSession = TransactionSynchronizationManager.isActualTransactionActive()
+                ? em.unwrap(SessionImplementor.class) : null;
+        if (callerSession != null) {
+            assertNoPendingChanges(callerSession, entityClass);
+        }
+
+        long totalUpdated = 0;
+        Long lastId = Long.MIN_VALUE;
+        for (int chunk = 1; ; chunk++) {
+            final Long fromId = lastId;
+            ChunkResult result = chunkTransaction.execute(status -> updateChunk(entityClass, idQuery, updateSql, parameters, fromId, chunkSize));
+            if (result == null) {
+                break;
+            }
+            evict(entityClass, result.ids, callerSession);
+
+            totalUpdated += result.updated;
+            lastId = result.ids.get(result.ids.size() - 1);
+            log.debug("bulk update chunk={} updated={} total={} lastId={}", chunk, result.updated, totalUpdated, lastId);
+            listener.onChunk(chunk, result.updated, totalUpdated, lastId);
+
+            if (result.ids.size() < chunkSize) {
+                break; //마지막 청크
+            }
+        }
+        return totalUpdated;
+    }
+
+    private ChunkResult updateChunk(Class<?> entityClass, String idQuery, String updateSql, Map<String, ?> parameters,
+                                    Long lastId, int chunkSize) {
+        Query idSelect = em.createQuery(idQuery)
+                .setParameter("lastId", lastId)
+                .setMaxResults(chunkSize);
+        @SuppressWarnings("unchecked")
+        List<Long> ids = bind(idSelect, parameters).getResultList();
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        Query update = em.createNativeQuery(updateSql)
+                .setParameter("ids", ids);
+        update.unwrap(NativeQuery.class).addSynchronizedQuerySpace(BULK_QUERY_SPACE);
+        int updated = bind(update, parameters).executeUpdate();
+
+        //쿼리 캐시는 테이블 단위로 무효화 (수정된 테이블을 사용하는 캐시된 쿼리 결과만), 커밋 이후에 반영해야 이전 값이 다시 캐시되지 않는다
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        String[] querySpaces = (String[]) session.getFactory().getMetamodel().entityPersister(entityClass).getQuerySpaces();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                session.getFactory().getCache().getTimestampsCache().invalidate(querySpaces, session);
+            }
+        });
+
+        return new ChunkResult(ids, updated);
+    }
+
+    private Query bind(Query query, Map<String, ?> parameters) {
+        for (Parameter<?> parameter : query.getParameters()) {
+            String name = parameter.getName();
+            if (name != null && parameters.containsKey(name)) {
+                query.setParameter(name, parameters.get(name));
+            }
+        }
+        return query;
+    }
+
+    //1차 캐시에서 제거할 엔티티에 flush 되지 않은 변경(등록, 수정, 삭제)이 있으면 조용히 사라지므로 시작하기 전에 거부한다
+    private void assertNoPendingChanges(SessionImplementor callerSession, Class<?> entityClass) {
+        if (callerSession.getActionQueue().hasAnyQueuedActions()) {
+            throw new IllegalStateException("flush 되지 않은 변경이 있는 영속성 컨텍스트에서는 청크 단위 벌크 업데이트를 실행할 수 없습니다");
+        }
+        for (Map.Entry<Object, EntityEntry> managed : callerSession.getPersistenceContext().reentrantSafeEntityEntries()) {
+            EntityEntry entry = managed.getValue();
+            EntityPersister persister = entry.getPersister();
+            if (!entityClass.isAssignableFrom(persister.getMappedClass()) || entry.getLoadedState() == null) {
+                continue; //다른 엔티티, 읽기 전용 엔티티 (변경이 flush 되지 않는다)
+            }
+            Object entity = managed.getKey();
+            boolean dirty = entry.getStatus() == Status.MANAGED
+                    && persister.findDirty(persister.getPropertyValues(entity), entry.getLoadedState(), entity, callerSession) != null;
+            if (dirty || entry.getStatus() == Status.DELETED) {
+                throw new IllegalStateException("flush 되지 않은 " + entityClass.getSimpleName() + " 변경이 있습니다: " + entry.getEntityKey());
+            }
+        }
+    }
+
+    //수정된 식별자만 2차 캐시와 호출한 쪽의 1차 캐시에서 제거 (변경이 없는 것은 시작할 때 확인)
+    private void evict(Class<?> entityClass, List<Long> ids, SessionImplementor callerSession) {
+        Cache secondLevelCache = em.getEntityManagerFactory().getCache();
+        for (Long id : ids) {
+            secondLevelCache.evict(entityClass, id);
+        }
+
+        if (callerSession == null) {
+            return;
+        }
+        EntityPersister persister = callerSession.getFactory().getMetamodel().entityPersister(entityClass);
+        for (Serializable id : ids) {
+            Object managed = callerSession.getPersistenceContext().getEntity(callerSession.generateEntityKey(id, persister));
+            if (managed != null) {
+                callerSession.evict(managed); //다음 조회 시 DB에서 다시 읽는다
+            }
+        }
+    }
+
+    private static class ChunkResult {
+        private final List<Long> ids;
+        private final int updated;
+
+        private ChunkResult(List<Long> ids, int updated) {
+            this.ids = ids;
+            this.updated = updated;
+        }
+    }
+}
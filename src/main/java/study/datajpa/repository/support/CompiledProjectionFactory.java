@@ -0,0 +1,334 @@
+package study.datajpa.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.EqualsMethod;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.HashCodeMethod;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.implementation.ToStringMethod;
+import net.bytebuddy.implementation.bind.annotation.RuntimeType;
+import net.bytebuddy.matcher.ElementMatchers;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 인터페이스 기반 Closed Projection을 JDK 프록시 대신 처음 사용할 때 생성한 구체 클래스로 만든다
+ * - 프록시는 getter를 호출할 때마다 리플렉션 + Map 조회를 하지만, 생성된 클래스는 생성 시점에 필드를 채우고 getter는 필드만 읽는다
+ * - (Projection 타입, 원본 타입) 별로 생성한 매퍼를 캐시한다 -> 같은 쿼리는 항상 같은 원본 타입(Tuple Map, 엔티티)을 돌려준다
+ * - Open Projection(@Value), 컬렉션 Projection, getter가 아닌 메서드가 있으면 기존 프록시 방식으로 처리한다
+ * - 엔티티의 연관(member.team)을 중첩 Projection으로 돌려주는 getter는 처음 호출할 때 변환한다 (프록시처럼 지연 로딩을 강제하지 않는다)
+ * - 생성된 클래스는 속성 값으로 equals/hashCode/toString을 구현한다 (값 객체)
+ * - 생성된 클래스는 팩토리마다 따로 만들어지므로 스프링 빈 하나를 리포지토리 팩토리, ProjectionQuerySupport, IndexAdvisor가 함께 사용한다
+ */
+@Slf4j
+@Component
+public class CompiledProjectionFactory extends SpelAwareProxyProjectionFactory {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+    private final Map<MapperKey, Optional<ProjectionMapper>> mappers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Optional<Class<?>>> compiledClasses = new ConcurrentHashMap<>();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T createProjection(Class<T> type, Object source) {
+        if (source == null || !type.isInterface() || type.isInstance(source)) {
+            return super.createProjection(type, source);
+        }
+        Optional<ProjectionMapper> mapper = mappers.computeIfAbsent(new MapperKey(type, source.getClass()), this::compileMapper);
+        return mapper.isPresent() ? (T) mapper.get().map(source) : super.createProjection(type, source);
+    }
+
+    private Optional<ProjectionMapper> compileMapper(MapperKey key) {
+        Optional<Class<?>> compiledClass = compiledClasses.computeIfAbsent(key.projectionType, this::compileClass);
+        if (compiledClass.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            List<PropertyMapper> properties = new ArrayList<>();
+            for (Method getter : getters(key.projectionType)) {
+                String property = BeanUtils.findPropertyForMethod(getter).getName();
+                ValueReader reader = reader(key.sourceType, property);
+                if (reader == null) {
+                    return Optional.empty(); //원본에 없는 속성
+                }
+                boolean lazy = isNestedProjection(getter.getReturnType()) && !Map.class.isAssignableFrom(key.sourceType);
+                MethodHandle setter = LOOKUP.findSetter(compiledClass.get(), property, lazy ? LazyProperty.class : getter.getReturnType())
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                properties.add(new PropertyMapper(getter.getReturnType(), reader, setter, lazy));
+            }
+            MethodHandle constructor = LOOKUP.findConstructor(compiledClass.get(), MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            return Optional.of(new ProjectionMapper(constructor, properties.toArray(new PropertyMapper[0])));
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            log.debug("Projection 매퍼를 만들 수 없어 프록시로 처리합니다: {} <- {}", key.projectionType.getName(), key.sourceType.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * public 필드 + 필드를 그대로 반환하는 getter를 가진 구현 클래스 생성 (Closed Projection이 아니면 empty)
+     * - 중첩 Projection 속성은 LazyProperty 필드에 위임한다 (Tuple Map 원본이어도 같은 클래스를 쓰므로 필드 타입은 같다)
+     * - 생성된 클래스는 별도 클래스 로더(WRAPPER)에 있고 publicLookup으로 접근하므로 인터페이스와 getter 타입이 모두 public이어야 한다
+     *   (package-private 인터페이스는 JDK 프록시로 처리한다)
+     */
+    private Optional<Class<?>> compileClass(Class<?> projectionType) {
+        List<Method> getters = getters(projectionType);
+        if (getters == null || !isPublic(projectionType)
+                || !getters.stream().allMatch(getter -> isPublic(getter.getReturnType()))) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(generate(projectionType, getters));
+        } catch (RuntimeException | LinkageError e) {
+            log.debug("Projection 클래스를 생성할 수 없어 프록시로 처리합니다: {}", projectionType.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    private Class<?> generate(Class<?> projectionType, List<Method> getters) {
+        DynamicType.Builder<?> builder = new ByteBuddy()
+                .subclass(Object.class)
+                .implement(projectionType)
+                .name(projectionType.getName() + "$Compiled");
+        for (Method getter : getters) {
+            String property = BeanUtils.findPropertyForMethod(getter).getName();
+            if (isNestedProjection(getter.getReturnType())) {
+                builder = builder.defineField(property, LazyProperty.class, Visibility.PUBLIC)
+                        .method(ElementMatchers.is(getter))
+                        .intercept(MethodDelegation.withDefaultConfiguration().filter(ElementMatchers.named("get")).toField(property));
+            } else {
+                builder = builder.defineField(property, getter.getReturnType(), Visibility.PUBLIC)
+                        .method(ElementMatchers.is(getter))
+                        .intercept(FieldAccessor.ofField(property));
+            }
+        }
+        builder = builder.method(ElementMatchers.isEquals()).intercept(EqualsMethod.isolated())
+                .method(ElementMatchers.isHashCode()).intercept(HashCodeMethod.usingDefaultOffset())
+                .method(ElementMatchers.isToString()).intercept(ToStringMethod.prefixedBySimpleClassName());
+        return builder.make()
+                .load(projectionType.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+    }
+
+    //타입과 감싸고 있는 클래스가 모두 public (배열은 원소 타입, primitive는 항상 접근 가능)
+    private static boolean isPublic(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Closed Projection의 getter 목록, 그 외의 추상 메서드나 @Value가 있으면 null
+    private List<Method> getters(Class<?> projectionType) {
+        List<Method> getters = new ArrayList<>();
+        for (Method method : projectionType.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            PropertyDescriptor descriptor = BeanUtils.findPropertyForMethod(method);
+            if (descriptor == null || !method.equals(descriptor.getReadMethod())
+                    || AnnotatedElementUtils.hasAnnotation(method, Value.class)
+                    || Collection.class.isAssignableFrom(method.getReturnType()) || Map.class.isAssignableFrom(method.getReturnType())) {
+                return null;
+            }
+            getters.add(method);
+        }
+        return getters;
+    }
+
+    //Tuple 결과는 Map(별칭 -> 값), 엔티티는 getter로 읽는다
+    private ValueReader reader(Class<?> sourceType, String property) throws IllegalAccessException {
+        if (Map.class.isAssignableFrom(sourceType)) {
+            return source -> ((Map<?, ?>) source).get(property);
+        }
+        PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(sourceType, property);
+        if (descriptor == null || descriptor.getReadMethod() == null) {
+            return null;
+        }
+        MethodHandle getter = LOOKUP.unreflect(descriptor.getReadMethod())
+                .asType(MethodType.methodType(Object.class, Object.class));
+        return source -> {
+            try {
+                return getter.invokeExact(source);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Projection 속성을 읽을 수 없습니다: " + property, e);
+            }
+        };
+    }
+
+    private static boolean isNestedProjection(Class<?> type) {
+        return type.isInterface() && !type.getName().startsWith("java.");
+    }
+
+    private Object convert(Object value, Class<?> targetType) {
+        if (value == null || ClassUtils.isAssignableValue(targetType, value)) {
+            return value;
+        }
+        if (isNestedProjection(targetType)) {
+            return createProjection(targetType, value); //중첩 Projection (ex. NestedClosedProjections.TeamInfo)
+        }
+        return conversionService.convert(value, targetType); //네이티브 쿼리의 BigInteger -> Long 등
+    }
+
+    @FunctionalInterface
+    private interface ValueReader {
+        Object read(Object source);
+    }
+
+    private class ProjectionMapper {
+
+        private final MethodHandle constructor;
+        private final PropertyMapper[] properties;
+
+        ProjectionMapper(MethodHandle constructor, PropertyMapper[] properties) {
+            this.constructor = constructor;
+            this.properties = properties;
+        }
+
+        Object map(Object source) {
+            try {
+                Object projection = constructor.invokeExact();
+                for (PropertyMapper property : properties) {
+                    if (property.lazy) {
+                        Object association = property.reader.read(source); //연관 엔티티 참조만 읽는다 (프록시 초기화 X)
+                        property.setter.invokeExact(projection, (Object) new LazyProperty(() -> convert(association, property.type)));
+                        continue;
+                    }
+                    Object value = convert(property.reader.read(source), property.type);
+                    if (isNestedProjection(property.type)) {
+                        property.setter.invokeExact(projection, (Object) new LazyProperty(() -> value)); //Tuple Map 원본은 이미 변환된 값
+                    } else if (value != null) { //null이면 필드 기본값 (primitive는 0, false)
+                        property.setter.invokeExact(projection, value);
+                    }
+                }
+                return projection;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Projection을 생성할 수 없습니다", e);
+            }
+        }
+    }
+
+    private static class PropertyMapper {
+
+        private final Class<?> type;
+        private final ValueReader reader;
+        private final MethodHandle setter;
+        private final boolean lazy;
+
+        PropertyMapper(Class<?> type, ValueReader reader, MethodHandle setter, boolean lazy) {
+            this.type = type;
+            this.reader = reader;
+            this.setter = setter;
+            this.lazy = lazy;
+        }
+    }
+
+    /**
+     * 중첩 Projection 속성 : getter를 처음 호출할 때 한 번만 변환한다
+     * - 생성된 클래스가 getter를 get()에 위임하므로 public이어야 한다
+     */
+    public static final class LazyProperty {
+
+        private Supplier<Object> supplier;
+        private Object value;
+
+        LazyProperty(Supplier<Object> supplier) {
+            this.supplier = supplier;
+        }
+
+        @RuntimeType
+        public synchronized Object get() {
+            if (supplier != null) {
+                value = supplier.get();
+                supplier = null; //변환에 사용한 원본 참조 해제
+            }
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LazyProperty)) {
+                return false;
+            }
+            return Objects.equals(get(), ((LazyProperty) o).get());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(get());
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(get());
+        }
+    }
+
+    private static class MapperKey {
+
+        private final Class<?> projectionType;
+        private final Class<?> sourceType;
+
+        MapperKey(Class<?> projectionType, Class<?> sourceType) {
+            this.projectionType = projectionType;
+            this.sourceType = sourceType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MapperKey)) {
+                return false;
+            }
+            MapperKey that = (MapperKey) o;
+            return projectionType.equals(that.projectionType) && sourceType.equals(that.sourceType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectionType, sourceType);
+        }
+    }
+}
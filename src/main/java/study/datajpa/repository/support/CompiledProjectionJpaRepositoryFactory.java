@@ -0,0 +1,26 @@
+package study.datajpa.repository.support;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.projection.ProjectionFactory;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 쿼리 메서드의 Projection 결과를 CompiledProjectionFactory로 만드는 리포지토리 팩토리
+ * - 모든 리포지토리가 같은 CompiledProjectionFactory(스프링 빈)를 사용한다 -> Projection 타입마다 클래스를 한 번만 생성
+ */
+public class CompiledProjectionJpaRepositoryFactory extends JpaRepositoryFactory {
+
+    private final CompiledProjectionFactory projectionFactory;
+
+    public CompiledProjectionJpaRepositoryFactory(EntityManager entityManager, CompiledProjectionFactory projectionFactory) {
+        super(entityManager);
+        this.projectionFactory = projectionFactory;
+    }
+
+    @Override
+    protected ProjectionFactory getProjectionFactory(ClassLoader classLoader, BeanFactory beanFactory) {
+        return projectionFactory;
+    }
+}
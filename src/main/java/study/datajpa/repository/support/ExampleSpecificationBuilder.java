@@ -0,0 +1,144 @@
+package study.datajpa.repository.support;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.util.DirectFieldAccessFallbackBeanWrapper;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Query By Example -> ParameterizedSpecification 변환
+ * - 연관 엔티티(Member.team) 조건은 inner join 대신 left join으로 만든다 -> 여러 Example을 OR로 묶어도 팀이 없는 회원이 빠지지 않는다
+ * - 문자열 매칭: EXACT(DEFAULT)는 '=', STARTING은 like 'x%'로 인덱스를 사용할 수 있게 만든다
+ *   ENDING, CONTAINING(like '%x')은 결과가 달라지므로 그대로 두고, REGEX는 지원하지 않는다
+ * - like 값의 %, _ 는 이스케이프하고, ignoreCase는 값을 미리 소문자로 바꿔서 컬럼 쪽에만 lower()를 적용한다
+ * - 결과가 ParameterizedSpecification이므로 같은 모양의 Example 검색은 SpecificationQueryCache의 JPQL을 재사용한다
+ * - JpaSpecificationExecutor(findAll(spec))로 실행할 때도 같은 조건에서 만든 Criteria(left join, 매칭, 이스케이프)로 동작한다
+ *   (QueryByExamplePredicateBuilder는 inner join이라 findAll(spec)과 findAllCached(spec)의 결과가 달라진다)
+ */
+@Component
+public class ExampleSpecificationBuilder {
+
+    private static final char ESCAPE = ParameterizedSpecification.ESCAPE;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public <T> ParameterizedSpecification<T> build(Example<T> example) {
+        ManagedType<T> type = em.getMetamodel().managedType(example.getProbeType());
+        List<String[]> joins = new ArrayList<>(); //{조인 경로, 별칭}, 부모 조인이 먼저 (ParameterizedSpecification은 선언한 별칭으로 시작하는 조인만 받는다)
+        ParameterizedSpecification<T> spec = collect(example.getProbe(), type, ParameterizedSpecification.ROOT_ALIAS, "", example.getMatcher(), joins);
+        for (String[] join : joins) {
+            spec = spec.join(join[0], join[1], JoinType.LEFT);
+        }
+        return spec;
+    }
+
+    //여러 Example을 하나의 OR 쿼리로 조회
+    public <T> ParameterizedSpecification<T> anyOf(Collection<Example<T>> examples) {
+        ParameterizedSpecification<T> spec = ParameterizedSpecification.empty();
+        for (Example<T> example : examples) {
+            ParameterizedSpecification<T> exampleSpec = build(example);
+            if (exampleSpec.isEmpty()) {
+                return exampleSpec; //조건이 없는 Example은 전체와 일치
+            }
+            spec = spec.or(exampleSpec);
+        }
+        return spec;
+    }
+
+    //alias : 현재 타입을 가리키는 별칭 또는 경로 (m, j_team, m.address), 조건에 필요한 연관 조인은 joins에 모은다
+    private <T> ParameterizedSpecification<T> collect(Object probe, ManagedType<?> type, String alias, String path, ExampleMatcher matcher, List<String[]> joins) {
+        DirectFieldAccessFallbackBeanWrapper wrapper = new DirectFieldAccessFallbackBeanWrapper(probe);
+        ParameterizedSpecification<T> spec = ParameterizedSpecification.empty();
+
+        for (SingularAttribute<?, ?> attribute : type.getSingularAttributes()) {
+            String name = attribute.getName();
+            String currentPath = path.isEmpty() ? name : path + "." + name;
+            if (matcher.isIgnoredPath(currentPath)) {
+                continue;
+            }
+            ExampleMatcher.PropertySpecifier specifier = matcher.getPropertySpecifiers().getForPath(currentPath);
+            Optional<Object> value = Optional.ofNullable(wrapper.getPropertyValue(name));
+            if (specifier != null) {
+                value = specifier.getPropertyValueTransformer().apply(value);
+            }
+            String property = alias + "." + name;
+
+            ParameterizedSpecification<T> condition;
+            if (value.isEmpty()) {
+                if (!matcher.getNullHandler().equals(ExampleMatcher.NullHandler.INCLUDE)) {
+                    continue;
+                }
+                condition = ParameterizedSpecification.isNull(property);
+            } else if (attribute.isAssociation()) {
+                String joinAlias = "j_" + currentPath.replace('.', '_');
+                ManagedType<?> target = em.getMetamodel().managedType(attribute.getJavaType());
+                int position = joins.size();
+                condition = collect(value.get(), target, joinAlias, currentPath, matcher, joins);
+                if (!condition.isEmpty()) {
+                    joins.add(position, new String[]{property, joinAlias}); //중첩 연관의 조인보다 먼저 선언
+                }
+            } else if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED) {
+                ManagedType<?> target = em.getMetamodel().managedType(attribute.getJavaType());
+                condition = collect(value.get(), target, property, currentPath, matcher, joins);
+            } else if (value.get() instanceof String) {
+                condition = stringCondition(property, (String) value.get(), specifier, matcher);
+            } else {
+                condition = ParameterizedSpecification.equal(property, value.get());
+            }
+
+            spec = matcher.isAnyMatching() ? spec.or(condition) : spec.and(condition);
+        }
+        return spec;
+    }
+
+    private <T> ParameterizedSpecification<T> stringCondition(String property, String value, ExampleMatcher.PropertySpecifier specifier, ExampleMatcher matcher) {
+        ExampleMatcher.StringMatcher stringMatcher = specifier != null && specifier.getStringMatcher() != null
+                ? specifier.getStringMatcher() : matcher.getDefaultStringMatcher();
+        boolean ignoreCase = specifier != null && specifier.getIgnoreCase() != null
+                ? specifier.getIgnoreCase() : matcher.isIgnoreCaseEnabled();
+
+        switch (stringMatcher) {
+            case DEFAULT:
+            case EXACT:
+                return ignoreCase ? ParameterizedSpecification.equalIgnoreCase(property, value) : ParameterizedSpecification.equal(property, value);
+            case STARTING:
+                return like(property, escape(value) + "%", ignoreCase);
+            case ENDING:
+                return like(property, "%" + escape(value), ignoreCase);
+            case CONTAINING:
+                return like(property, "%" + escape(value) + "%", ignoreCase);
+            default:
+                throw new IllegalArgumentException("지원하지 않는 StringMatcher 입니다: " + stringMatcher);
+        }
+    }
+
+    private <T> ParameterizedSpecification<T> like(String property, String pattern, boolean ignoreCase) {
+        if (pattern.chars().allMatch(c -> c == '%')) {
+            return ParameterizedSpecification.empty(); //빈 문자열 매칭은 항상 참 -> 조건 생략
+        }
+        return ignoreCase ? ParameterizedSpecification.likeIgnoreCase(property, pattern) : ParameterizedSpecification.like(property, pattern);
+    }
+
+    private String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == ESCAPE || c == '%' || c == '_') {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
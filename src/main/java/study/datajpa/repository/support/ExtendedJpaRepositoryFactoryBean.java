@@ -0,0 +1,72 @@
+package study.datajpa.repository.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 스프링 빈으로 등록된 RepositoryProxyPostProcessor를 모든 리포지토리 프록시에 적용하는 팩토리 빈
+ * - @EnableJpaRepositories(repositoryFactoryBeanClass = ...)로 지정한다
+ * - 여기서 추가한 어드바이스는 트랜잭션 어드바이스보다 바깥쪽에서 실행된다
+ */
+public class ExtendedJpaRepositoryFactoryBean<T extends Repository<S, ID>, S, ID> extends JpaRepositoryFactoryBean<T, S, ID> {
+
+    private List<RepositoryProxyPostProcessor> postProcessors = Collections.emptyList();
+    private EntityPathResolver entityPathResolver = SimpleEntityPathResolver.INSTANCE;
+    private char escapeCharacter = '\\';
+    private CompiledProjectionFactory projectionFactory;
+
+    public ExtendedJpaRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Autowired
+    public void setRepositoryProxyPostProcessors(ObjectProvider<RepositoryProxyPostProcessor> postProcessors) {
+        this.postProcessors = postProcessors.orderedStream().collect(Collectors.toList());
+    }
+
+    //스프링 빈이 없으면 (ex. 컴포넌트 스캔 밖에서 사용) 리포지토리마다 만든다
+    @Autowired
+    public void setProjectionFactory(ObjectProvider<CompiledProjectionFactory> projectionFactory) {
+        this.projectionFactory = projectionFactory.getIfAvailable();
+    }
+
+    @Override
+    @Autowired
+    public void setEntityPathResolver(ObjectProvider<EntityPathResolver> resolver) {
+        super.setEntityPathResolver(resolver);
+        this.entityPathResolver = resolver.getIfAvailable(() -> SimpleEntityPathResolver.INSTANCE);
+    }
+
+    @Override
+    public void setEscapeCharacter(char escapeCharacter) {
+        super.setEscapeCharacter(escapeCharacter);
+        this.escapeCharacter = escapeCharacter;
+    }
+
+    //JpaRepositoryFactoryBean과 같은 설정으로 만들되, Projection은 생성된 클래스로 만든다 (CompiledProjectionFactory)
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        CompiledProjectionFactory projectionFactory = this.projectionFactory;
+        if (projectionFactory == null) {
+            projectionFactory = new CompiledProjectionFactory();
+            projectionFactory.setBeanClassLoader(getClass().getClassLoader());
+        }
+        JpaRepositoryFactory factory = new CompiledProjectionJpaRepositoryFactory(entityManager, projectionFactory);
+        factory.setEntityPathResolver(entityPathResolver);
+        factory.setEscapeCharacter(escapeCharacter);
+        postProcessors.forEach(factory::addRepositoryProxyPostProcessor);
+        return factory;
+    }
+}
@@ -0,0 +1,145 @@
+package study.datajpa.repository.support;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.annotation.CreatedBy;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedBy;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.entity.CoarseClock;
+
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AuditingEntityListener 대신 하이버네이트 인터셉터로 감사 컬럼(@CreatedDate, @LastModifiedDate, @CreatedBy, @LastModifiedBy)을 채운다
+ * (datajpa.auditing.mode=flush, AuditingConfig)
+ * - 엔티티 필드에 리플렉션으로 쓰지 않고, 하이버네이트가 INSERT/UPDATE에 사용할 상태 배열(state)에 값을 넣는다 (엔티티에는 하이버네이트가 한 번에 다시 반영)
+ * - 감사 필드의 상태 배열 위치는 엔티티 타입별로 한 번만 찾는다
+ * - 등록자/수정자는 트랜잭션마다 AuditorAware를 한 번만 호출하고, 시각은 CoarseClock을 사용한다
+ * 등록은 persist 시점(onSave), 수정은 flush 시점(onFlushDirty)에 채운다
+ * 세션 팩토리 하나가 모든 세션에서 같이 사용하므로 상태를 갖지 않는다 (캐시 제외)
+ */
+public class FlushAuditingInterceptor extends EmptyInterceptor {
+
+    private static final Object NO_AUDITOR = new Object();
+
+    private final ObjectProvider<AuditorAware<?>> auditorAware;
+    private final CoarseClock clock;
+    private final Map<Class<?>, AuditProperties> properties = new ConcurrentHashMap<>();
+
+    public FlushAuditingInterceptor(ObjectProvider<AuditorAware<?>> auditorAware, CoarseClock clock) {
+        this.auditorAware = auditorAware;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        AuditProperties audit = properties.computeIfAbsent(entity.getClass(), type -> new AuditProperties(type, propertyNames));
+        if (audit.isEmpty()) {
+            return false;
+        }
+        LocalDateTime now = clock.now();
+        Object auditor = audit.hasAuditor() ? currentAuditor() : null;
+        set(state, audit.createdDate, now);
+        set(state, audit.lastModifiedDate, now);
+        set(state, audit.createdBy, auditor);
+        set(state, audit.lastModifiedBy, auditor);
+        return true;
+    }
+
+    @Override
+    public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState, String[] propertyNames, Type[] types) {
+        AuditProperties audit = properties.computeIfAbsent(entity.getClass(), type -> new AuditProperties(type, propertyNames));
+        if (audit.lastModifiedDate < 0 && audit.lastModifiedBy < 0) {
+            return false;
+        }
+        set(currentState, audit.lastModifiedDate, clock.now());
+        set(currentState, audit.lastModifiedBy, audit.lastModifiedBy >= 0 ? currentAuditor() : null);
+        return true;
+    }
+
+    private static void set(Object[] state, int index, Object value) {
+        if (index >= 0) {
+            state[index] = value;
+        }
+    }
+
+    //트랜잭션 동안 같은 등록자/수정자를 사용한다 (트랜잭션 밖이면 매번 조회)
+    private Object currentAuditor() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return resolveAuditor();
+        }
+        Object cached = TransactionSynchronizationManager.getResource(this);
+        if (cached == null) {
+            Object auditor = resolveAuditor();
+            cached = auditor != null ? auditor : NO_AUDITOR;
+            TransactionSynchronizationManager.bindResource(this, cached);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FlushAuditingInterceptor.this);
+                }
+            });
+        }
+        return cached == NO_AUDITOR ? null : cached;
+    }
+
+    private Object resolveAuditor() {
+        AuditorAware<?> aware = auditorAware.getIfAvailable();
+        return aware != null ? aware.getCurrentAuditor().orElse(null) : null;
+    }
+
+    //엔티티 타입별 감사 필드의 상태 배열 위치 (없으면 -1)
+    private static class AuditProperties {
+
+        private final int createdDate;
+        private final int lastModifiedDate;
+        private final int createdBy;
+        private final int lastModifiedBy;
+
+        AuditProperties(Class<?> entityType, String[] propertyNames) {
+            List<String> names = Arrays.asList(propertyNames);
+            this.createdDate = indexOf(entityType, CreatedDate.class, names);
+            this.lastModifiedDate = indexOf(entityType, LastModifiedDate.class, names);
+            this.createdBy = indexOf(entityType, CreatedBy.class, names);
+            this.lastModifiedBy = indexOf(entityType, LastModifiedBy.class, names);
+        }
+
+        boolean isEmpty() {
+            return createdDate < 0 && lastModifiedDate < 0 && createdBy < 0 && lastModifiedBy < 0;
+        }
+
+        boolean hasAuditor() {
+            return createdBy >= 0 || lastModifiedBy >= 0;
+        }
+
+        private static int indexOf(Class<?> entityType, Class<? extends Annotation> annotation, List<String> names) {
+            int[] index = {-1};
+            ReflectionUtils.doWithFields(entityType, field -> index[0] = names.indexOf(field.getName()),
+                    field -> field.isAnnotationPresent(annotation));
+            if (index[0] >= 0 && (annotation == CreatedDate.class || annotation == LastModifiedDate.class)) {
+                checkType(entityType, annotation, names.get(index[0]));
+            }
+            return index[0];
+        }
+
+        private static void checkType(Class<?> entityType, Class<? extends Annotation> annotation, String name) {
+            Field field = ReflectionUtils.findField(entityType, name);
+            if (field != null && field.getType() != LocalDateTime.class) {
+                throw new IllegalStateException("@" + annotation.getSimpleName() + "는 LocalDateTime 타입만 지원합니다: " + entityType.getName() + "." + name);
+            }
+        }
+    }
+}
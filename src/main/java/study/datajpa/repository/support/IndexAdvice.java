@@ -0,0 +1,26 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * IndexAdvisor 분석 결과
+ */
+@Getter
+public class IndexAdvice {
+
+    private final List<IndexSuggestion> missing; //쿼리 메서드에 필요한데 실제 스키마에 없는 인덱스 (겹치는 제안은 하나로 합친다)
+    private final List<IndexSuggestion> missingDeclared; //@Table(indexes)에 선언했는데 실제 스키마에 없는 인덱스 (회귀)
+    private final List<String> skipped; //분석하지 못한 쿼리 메서드와 이유
+
+    public IndexAdvice(List<IndexSuggestion> missing, List<IndexSuggestion> missingDeclared, List<String> skipped) {
+        this.missing = missing;
+        this.missingDeclared = missingDeclared;
+        this.skipped = skipped;
+    }
+
+    public boolean isEmpty() {
+        return missing.isEmpty() && missingDeclared.isEmpty();
+    }
+}
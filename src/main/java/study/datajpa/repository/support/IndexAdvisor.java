@@ -0,0 +1,689 @@
+package study.datajpa.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.NamedQueryDefinition;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.ProjectionInformation;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.sql.DataSource;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 리포지토리 쿼리 카탈로그 기반 인덱스 어드바이저
+ * - ddl-auto: create는 PK(H2는 FK 인덱스까지)만 만들기 때문에, 쿼리 메서드가 거르고 정렬하는 컬럼의 인덱스는 따로 챙겨야 한다
+ * - 모든 리포지토리의 쿼리 메서드(메서드 이름 쿼리, NamedQuery, @Query JPQL)에서 조건/정렬 컬럼을 뽑아 필요한 인덱스를 만든다
+ *   컬럼 순서 : 동등 조건(=, in) -> 정렬(order by) -> 첫 번째 범위 조건(>, <, between, like)
+ *   Projection(DTO, Closed 인터페이스, 스칼라)을 조회하면 select 컬럼까지 붙여서 커버링 인덱스로 제안한다 (PK는 보조 인덱스에 들어 있으므로 제외)
+ * - 실제 스키마(DatabaseMetaData)의 인덱스로 이미 처리되는 것은 빼고 @Index / DDL로 알려주고,
+ *   @Table(indexes)에 선언한 인덱스가 스키마에 없으면 회귀로 알린다
+ * - datajpa.index-advisor.enabled=true면 애플리케이션 시작 시 실행, fail-on-missing=true면 부족한 인덱스가 있을 때 시작을 실패시킨다 (CI 용도)
+ * 한계: 네이티브 쿼리, Specification/Example, 커스텀 구현(MemberRepositoryImpl)은 분석하지 않고, JPQL은 'alias.속성 연산자' 형태의 조건만 인식한다
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    private static final Pattern ROOT = Pattern.compile("\\b(?:from|update)\\s+(\\w+)(?:\\s+(?:as\\s+)?(\\w+))?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JOIN = Pattern.compile("\\bjoin\\s+(?:fetch\\s+)?(\\w+)\\.(\\w+)(?:\\s+(?:as\\s+)?(\\w+))?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SELECT = Pattern.compile("^\\s*select\\s+(?:distinct\\s+)?(.+?)\\s+from\\s", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern PREDICATE = Pattern.compile(
+            "(\\w+)\\.([\\w.]+)\\s*(>=|<=|<>|!=|=|>|<|not\\s+in\\b|in\\b|not\\s+like\\b|like\\b|between\\b|is\\s+not\\s+null\\b|is\\s+null\\b)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern PATH = Pattern.compile("(\\w+)(?:\\.([\\w.]+))?");
+    private static final Pattern CLAUSE_END = Pattern.compile("\\s(?:order|group)\\s+by\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORDER_BY = Pattern.compile("\\sorder\\s+by\\s+(.+)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern OR = Pattern.compile("\\bor\\b", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> KEYWORDS = Set.of("where", "left", "inner", "outer", "join", "order", "group", "set", "fetch");
+
+    private final ApplicationContext applicationContext;
+    private final SessionFactoryImplementor sessionFactory;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final boolean failOnMissing;
+    private final ProjectionFactory projectionFactory;
+
+    public IndexAdvisor(ApplicationContext applicationContext, EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                        CompiledProjectionFactory projectionFactory,
+                        @Value("${datajpa.index-advisor.enabled:false}") boolean enabled,
+                        @Value("${datajpa.index-advisor.fail-on-missing:false}") boolean failOnMissing) {
+        this.applicationContext = applicationContext;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.dataSource = dataSource;
+        this.projectionFactory = projectionFactory;
+        this.enabled = enabled;
+        this.failOnMissing = failOnMissing;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void adviseOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        IndexAdvice advice = advise();
+        advice.getMissing().forEach(suggestion -> log.warn("인덱스 부족 {} -> {} / {}",
+                suggestion.getSources(), suggestion.toIndexAnnotation(), suggestion.toDdl()));
+        advice.getMissingDeclared().forEach(declared -> log.warn("@Table(indexes)에 선언한 인덱스가 스키마에 없습니다: {}", declared.toDdl()));
+        advice.getSkipped().forEach(skipped -> log.debug("인덱스 분석 생략: {}", skipped));
+
+        if (failOnMissing && !advice.isEmpty()) {
+            throw new IllegalStateException("부족한 인덱스 " + advice.getMissing().size() + "개, 스키마에 없는 선언 인덱스 "
+                    + advice.getMissingDeclared().size() + "개: " + advice.getMissing() + advice.getMissingDeclared());
+        }
+        log.info("인덱스 분석 완료 : 부족한 인덱스 {}개, 분석 생략 {}개", advice.getMissing().size(), advice.getSkipped().size());
+    }
+
+    public IndexAdvice advise() {
+        List<IndexNeed> needs = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                String source = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                try {
+                    needs.addAll(analyze(information, domainType, method, source));
+                } catch (PropertyReferenceException | IllegalArgumentException | HibernateException e) {
+                    skipped.add(source + " : " + e.getMessage());
+                }
+            }
+        }
+        skipped.addAll(needs.stream().filter(need -> need.skippedReason != null).map(need -> need.source + " : " + need.skippedReason).collect(Collectors.toList()));
+        needs.removeIf(need -> need.skippedReason != null);
+
+        Map<String, Map<String, List<String>>> existing = existingIndexes(needs.stream().map(need -> need.table).collect(Collectors.toCollection(LinkedHashSet::new)));
+        List<IndexNeed> missing = needs.stream()
+                .filter(need -> existing.getOrDefault(need.table, Map.of()).values().stream().noneMatch(index -> need.isSatisfiedBy(index)))
+                .collect(Collectors.toList());
+        return new IndexAdvice(merge(missing), missingDeclared(), skipped);
+    }
+
+    private List<IndexNeed> analyze(RepositoryInformation information, Class<?> domainType, Method method, String source) {
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query != null && !query.value().isEmpty()) {
+            if (query.nativeQuery()) {
+                return List.of(IndexNeed.skipped(source, "네이티브 쿼리"));
+            }
+            return analyzeJpql(source, query.value());
+        }
+        NamedQueryDefinition namedQuery = sessionFactory.getNamedQueryRepository().getNamedQueryDefinition(domainType.getSimpleName() + "." + method.getName());
+        if (namedQuery != null) {
+            return analyzeJpql(source, namedQuery.getQueryString());
+        }
+        return analyzePartTree(information, domainType, method, source);
+    }
+
+    /**
+     * 메서드 이름 쿼리 : findByUsernameAndAgeGreaterThan -> username(=), age(>)
+     */
+    private List<IndexNeed> analyzePartTree(RepositoryInformation information, Class<?> domainType, Method method, String source) {
+        AbstractEntityPersister root = persister(domainType.getName());
+        PartTree tree = new PartTree(method.getName(), domainType);
+        boolean disjunction = tree.stream().count() > 1;
+
+        List<ColumnUse> uses = new ArrayList<>();
+        for (PartTree.OrPart orPart : tree) {
+            for (Part part : orPart) {
+                Kind kind = part.shouldIgnoreCase() == Part.IgnoreCaseType.NEVER ? kindOf(part.getType()) : null; //lower(컬럼)은 인덱스를 타지 않는다
+                ColumnRef column = resolve(root, part.getProperty().toDotPath());
+                if (kind != null && column != null) {
+                    uses.add(new ColumnUse(column, kind));
+                }
+            }
+        }
+        for (Sort.Order order : tree.getSort()) {
+            ColumnRef column = resolve(root, order.getProperty());
+            if (column != null) {
+                uses.add(new ColumnUse(column, Kind.SORT));
+            }
+        }
+
+        Set<ColumnRef> covering = null; //null : 엔티티 조회 (커버링 X)
+        if (tree.isCountProjection() || tree.isExistsProjection()) {
+            covering = Set.of(); //조건 컬럼만 있으면 된다
+        } else if (!tree.isDelete() && Arrays.stream(method.getParameterTypes()).noneMatch(Class.class::equals)) { //동적 Projection은 타입을 알 수 없다
+            covering = projectionColumns(root, information.getReturnedDomainClass(method), domainType);
+        }
+        return toNeeds(source, root, uses, covering, disjunction);
+    }
+
+    /**
+     * JPQL : select m from Member m left join m.team t where m.username = :username and t.name = :teamName order by m.age desc
+     */
+    private List<IndexNeed> analyzeJpql(String source, String jpql) {
+        Matcher rootMatcher = ROOT.matcher(jpql);
+        if (!rootMatcher.find()) {
+            return List.of(IndexNeed.skipped(source, "from 절을 찾을 수 없습니다"));
+        }
+        AbstractEntityPersister root = persister(sessionFactory.getMetamodel().getImportedClassName(rootMatcher.group(1)));
+        Map<String, AbstractEntityPersister> aliases = new HashMap<>();
+        String rootAlias = rootMatcher.group(2);
+        aliases.put(rootAlias == null || KEYWORDS.contains(rootAlias.toLowerCase(Locale.ROOT)) ? rootMatcher.group(1) : rootAlias, root);
+
+        List<ColumnRef> joinColumns = new ArrayList<>(); //루트에서 조인한 FK 컬럼 (커버링에 포함)
+        Matcher joinMatcher = JOIN.matcher(jpql);
+        while (joinMatcher.find()) {
+            AbstractEntityPersister parent = aliases.get(joinMatcher.group(1));
+            if (parent == null) {
+                continue;
+            }
+            Type type = parent.getPropertyType(joinMatcher.group(2));
+            if (!type.isEntityType()) {
+                continue; //컬렉션 조인(t.members)은 분석 대상에서 제외
+            }
+            if (parent == root) {
+                joinColumns.add(resolve(root, joinMatcher.group(2)));
+            }
+            String alias = joinMatcher.group(3);
+            if (alias != null && !KEYWORDS.contains(alias.toLowerCase(Locale.ROOT))) {
+                aliases.put(alias, persister(((EntityType) type).getAssociatedEntityName()));
+            }
+        }
+
+        List<ColumnUse> uses = new ArrayList<>();
+        String where = whereClause(jpql);
+        Matcher predicate = PREDICATE.matcher(where);
+        while (predicate.find()) {
+            Kind kind = kindOf(predicate.group(3));
+            ColumnRef column = resolve(aliases, predicate.group(1), predicate.group(2));
+            if (kind != null && column != null) {
+                uses.add(new ColumnUse(column, kind));
+            }
+        }
+        Matcher orderBy = ORDER_BY.matcher(jpql);
+        if (orderBy.find()) {
+            for (String item : orderBy.group(1).split(",")) {
+                ColumnRef column = resolvePath(aliases, item.trim().split("\\s+")[0]);
+                if (column != null) {
+                    uses.add(new ColumnUse(column, Kind.SORT));
+                }
+            }
+        }
+        Set<ColumnRef> covering = selectColumns(aliases, jpql);
+        if (covering != null) {
+            joinColumns.stream().filter(Objects::nonNull).forEach(covering::add);
+        }
+        return toNeeds(source, root, uses, covering, OR.matcher(where).find());
+    }
+
+    /**
+     * select 절이 속성 경로/생성자 표현식이면 조회 컬럼, 엔티티를 조회하면 null
+     */
+    private Set<ColumnRef> selectColumns(Map<String, AbstractEntityPersister> aliases, String jpql) {
+        Matcher select = SELECT.matcher(jpql);
+        if (!select.find()) {
+            return null; //update, delete
+        }
+        String items = select.group(1).trim();
+        if (items.toLowerCase(Locale.ROOT).startsWith("new ")) {
+            items = items.substring(items.indexOf('(') + 1, items.lastIndexOf(')'));
+        }
+        Set<ColumnRef> columns = new LinkedHashSet<>();
+        for (String item : items.split(",")) {
+            String expression = item.trim().split("\\s+")[0];
+            if (expression.contains("(")) {
+                continue; //count(m) 같은 집계는 조건 컬럼만 있으면 된다
+            }
+            Matcher path = PATH.matcher(expression);
+            if (!path.matches() || path.group(2) == null) {
+                return null; //엔티티 조회 (select m)
+            }
+            ColumnRef column = resolve(aliases, path.group(1), path.group(2));
+            if (column == null) {
+                return null;
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    //Closed Projection, DTO의 속성 -> 컬럼, 엔티티나 Open Projection이면 null
+    private Set<ColumnRef> projectionColumns(AbstractEntityPersister root, Class<?> returnedType, Class<?> domainType) {
+        if (returnedType == null || returnedType.equals(domainType) || isEntity(returnedType)
+                || ClassUtils.isPrimitiveOrWrapper(returnedType) || CharSequence.class.isAssignableFrom(returnedType)) {
+            return null; //스칼라 반환은 @Query로만 가능 (JPQL select 절에서 처리)
+        }
+        ProjectionInformation information = projectionFactory.getProjectionInformation(returnedType);
+        if (!information.isClosed()) {
+            return null;
+        }
+        Set<ColumnRef> columns = new LinkedHashSet<>();
+        for (PropertyDescriptor property : information.getInputProperties()) {
+            ColumnRef column = resolve(root, property.getName());
+            if (column == null) {
+                return null;
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    private boolean isEntity(Class<?> type) {
+        try {
+            sessionFactory.getMetamodel().entityPersister(type);
+            return true;
+        } catch (HibernateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 테이블별로 필요한 인덱스를 만든다
+     * - or 조건은 컬럼마다 따로 (인덱스 머지), and 조건은 동등 -> 정렬(루트 테이블만) -> 첫 번째 범위 순서
+     * - PK 동등 조건이 있으면 PK 인덱스로 충분하므로 제외
+     */
+    private List<IndexNeed> toNeeds(String source, AbstractEntityPersister root, List<ColumnUse> uses, Set<ColumnRef> covering, boolean disjunction) {
+        String rootTable = tableOf(root);
+        Map<String, IndexNeed> needs = new LinkedHashMap<>();
+        List<IndexNeed> result = new ArrayList<>();
+        for (ColumnUse use : uses) {
+            if (disjunction) {
+                if (use.kind != Kind.SORT) {
+                    IndexNeed need = new IndexNeed(source, use.column.table);
+                    need.add(use);
+                    result.add(need);
+                }
+                continue;
+            }
+            if (use.kind == Kind.SORT && !use.column.table.equals(rootTable)) {
+                continue; //조인한 테이블 컬럼의 정렬은 인덱스로 처리할 수 없다
+            }
+            needs.computeIfAbsent(use.column.table, table -> new IndexNeed(source, table)).add(use);
+        }
+        if (covering != null && !disjunction) {
+            IndexNeed rootNeed = needs.computeIfAbsent(rootTable, table -> new IndexNeed(source, table));
+            rootNeed.covering = covering.stream()
+                    .filter(column -> column.table.equals(rootTable))
+                    .map(column -> column.column)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+        result.addAll(needs.values());
+
+        result.forEach(need -> need.primaryKey = primaryKey(need.table));
+        result.removeIf(need -> need.equality.containsAll(need.primaryKey) || need.columns().isEmpty());
+        return result;
+    }
+
+    /**
+     * 겹치는 제안 합치기 : 컬럼이 많은 제안부터 만들고, 이미 만든 제안으로 처리되는 필요는 출처만 추가한다
+     * ex) (username) 필요는 (username, age) 제안으로 처리된다
+     */
+    private List<IndexSuggestion> merge(List<IndexNeed> missing) {
+        List<IndexNeed> sorted = new ArrayList<>(missing);
+        sorted.sort(Comparator.comparingInt((IndexNeed need) -> need.columns().size()).reversed());
+
+        List<IndexSuggestion> suggestions = new ArrayList<>();
+        for (IndexNeed need : sorted) {
+            IndexSuggestion suggestion = suggestions.stream()
+                    .filter(candidate -> candidate.getTable().equals(need.table) && need.isSatisfiedBy(candidate.getColumns()))
+                    .findFirst()
+                    .orElseGet(() -> {
+                        IndexSuggestion created = IndexSuggestion.of(need.table, need.columns());
+                        suggestions.add(created);
+                        return created;
+                    });
+            suggestion.addSource(need.source);
+        }
+        return suggestions;
+    }
+
+    //@Table(indexes)에 선언했는데 스키마에 같은 이름이나 같은 컬럼 순서의 인덱스가 없는 것
+    private List<IndexSuggestion> missingDeclared() {
+        Map<String, List<IndexSuggestion>> declared = new LinkedHashMap<>();
+        for (EntityPersister entityPersister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            AbstractEntityPersister persister = (AbstractEntityPersister) entityPersister;
+            Table table = AnnotatedElementUtils.findMergedAnnotation(persister.getMappedClass(), Table.class);
+            if (table == null) {
+                continue;
+            }
+            for (Index index : table.indexes()) {
+                List<String> columns = Arrays.stream(index.columnList().split(","))
+                        .map(column -> column.trim().split("\\s+")[0].toLowerCase(Locale.ROOT)) //"username asc"
+                        .collect(Collectors.toList());
+                declared.computeIfAbsent(tableOf(persister), key -> new ArrayList<>())
+                        .add(new IndexSuggestion(index.name().toLowerCase(Locale.ROOT), tableOf(persister), columns));
+            }
+        }
+        Map<String, Map<String, List<String>>> existing = existingIndexes(declared.keySet());
+        List<IndexSuggestion> missing = new ArrayList<>();
+        declared.forEach((table, indexes) -> {
+            Map<String, List<String>> tableIndexes = existing.getOrDefault(table, Map.of());
+            for (IndexSuggestion index : indexes) {
+                if (!tableIndexes.containsKey(index.getName()) && !tableIndexes.containsValue(index.getColumns())) {
+                    index.addSource("@Table(indexes)");
+                    missing.add(index);
+                }
+            }
+        });
+        return missing;
+    }
+
+    /**
+     * 실제 스키마의 인덱스 : 테이블 -> (인덱스 이름 -> 컬럼 순서), 이름은 모두 소문자
+     */
+    private Map<String, Map<String, List<String>>> existingIndexes(Collection<String> tables) {
+        Map<String, Map<String, List<String>>> result = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : tables) {
+                String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+                Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+                try (ResultSet rs = metaData.getIndexInfo(null, null, name, false, false)) {
+                    while (rs.next()) {
+                        String indexName = rs.getString("INDEX_NAME");
+                        String column = rs.getString("COLUMN_NAME");
+                        if (indexName == null || column == null) {
+                            continue; //테이블 통계 행
+                        }
+                        indexes.computeIfAbsent(indexName.toLowerCase(Locale.ROOT), key -> new TreeMap<>())
+                                .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                    }
+                }
+                Map<String, List<String>> columns = new LinkedHashMap<>();
+                indexes.forEach((indexName, ordered) -> columns.put(indexName, new ArrayList<>(ordered.values())));
+                result.put(table, columns);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("인덱스 메타데이터를 읽을 수 없습니다", e);
+        }
+        return result;
+    }
+
+    private ColumnRef resolve(Map<String, AbstractEntityPersister> aliases, String alias, String path) {
+        AbstractEntityPersister persister = aliases.get(alias);
+        return persister == null ? null : resolve(persister, path);
+    }
+
+    private ColumnRef resolvePath(Map<String, AbstractEntityPersister> aliases, String expression) {
+        Matcher path = PATH.matcher(expression);
+        return path.matches() && path.group(2) != null ? resolve(aliases, path.group(1), path.group(2)) : null;
+    }
+
+    /**
+     * 속성 경로 -> 테이블 컬럼
+     * - username -> member.username, team -> member.team_id, team.id -> member.team_id, team.name -> team.name
+     * - 컬렉션, 임베디드, 여러 컬럼으로 매핑된 속성은 null
+     */
+    private ColumnRef resolve(AbstractEntityPersister persister, String path) {
+        String[] segments = path.split("\\.");
+        AbstractEntityPersister current = persister;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (segment.equals(current.getIdentifierPropertyName())) {
+                return last ? singleColumn(current, current.getIdentifierColumnNames()) : null;
+            }
+            Type type;
+            try {
+                type = current.getPropertyType(segment);
+            } catch (HibernateException e) {
+                return null;
+            }
+            if (type.isCollectionType()) {
+                return null;
+            }
+            if (last) {
+                return singleColumn(current, current.getPropertyColumnNames(segment));
+            }
+            if (!type.isEntityType()) {
+                return null;
+            }
+            AbstractEntityPersister target = persister(((EntityType) type).getAssociatedEntityName());
+            if (i + 2 == segments.length && segments[i + 1].equals(target.getIdentifierPropertyName())) {
+                return singleColumn(current, current.getPropertyColumnNames(segment)); //team.id는 조인 없이 FK 컬럼으로 비교
+            }
+            current = target;
+        }
+        return null;
+    }
+
+    private ColumnRef singleColumn(AbstractEntityPersister persister, String[] columns) {
+        return columns.length == 1 ? new ColumnRef(tableOf(persister), columns[0].toLowerCase(Locale.ROOT)) : null;
+    }
+
+    private AbstractEntityPersister persister(String entityName) {
+        return (AbstractEntityPersister) sessionFactory.getMetamodel().entityPersister(entityName);
+    }
+
+    private List<String> primaryKey(String table) {
+        for (EntityPersister entityPersister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            AbstractEntityPersister persister = (AbstractEntityPersister) entityPersister;
+            if (tableOf(persister).equals(table)) {
+                return Arrays.stream(persister.getIdentifierColumnNames()).map(column -> column.toLowerCase(Locale.ROOT)).collect(Collectors.toList());
+            }
+        }
+        return List.of();
+    }
+
+    private static String tableOf(AbstractEntityPersister persister) {
+        return persister.getTableName().toLowerCase(Locale.ROOT);
+    }
+
+    private static String whereClause(String jpql) {
+        Matcher where = Pattern.compile("\\swhere\\s", Pattern.CASE_INSENSITIVE).matcher(jpql);
+        if (!where.find()) {
+            return "";
+        }
+        String clause = jpql.substring(where.end());
+        Matcher end = CLAUSE_END.matcher(clause);
+        return end.find() ? clause.substring(0, end.start()) : clause;
+    }
+
+    private static Kind kindOf(Part.Type type) {
+        switch (type) {
+            case SIMPLE_PROPERTY:
+            case IN:
+            case TRUE:
+            case FALSE:
+            case IS_NULL:
+                return Kind.EQUALITY;
+            case GREATER_THAN:
+            case GREATER_THAN_EQUAL:
+            case LESS_THAN:
+            case LESS_THAN_EQUAL:
+            case BETWEEN:
+            case AFTER:
+            case BEFORE:
+            case STARTING_WITH:
+            case LIKE:
+                return Kind.RANGE;
+            default:
+                return null; //부정 조건, containing, ending with 등은 인덱스 범위 탐색을 할 수 없다
+        }
+    }
+
+    private static Kind kindOf(String operator) {
+        String normalized = operator.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        switch (normalized) {
+            case "=":
+            case "in":
+            case "is null":
+                return Kind.EQUALITY;
+            case ">":
+            case ">=":
+            case "<":
+            case "<=":
+            case "between":
+            case "like":
+                return Kind.RANGE;
+            default:
+                return null;
+        }
+    }
+
+    private enum Kind {
+        EQUALITY, RANGE, SORT
+    }
+
+    private static class ColumnRef {
+
+        private final String table;
+        private final String column;
+
+        ColumnRef(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ColumnRef)) {
+                return false;
+            }
+            ColumnRef that = (ColumnRef) o;
+            return table.equals(that.table) && column.equals(that.column);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(table, column);
+        }
+    }
+
+    private static class ColumnUse {
+
+        private final ColumnRef column;
+        private final Kind kind;
+
+        ColumnUse(ColumnRef column, Kind kind) {
+            this.column = column;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * 쿼리 하나가 테이블 하나에 요구하는 인덱스
+     */
+    private static class IndexNeed {
+
+        private final String source;
+        private final String table;
+        private final Set<String> equality = new LinkedHashSet<>();
+        private final List<String> sort = new ArrayList<>();
+        private String range;
+        private Set<String> covering; //null이면 커버링 X
+        private List<String> primaryKey = List.of();
+        private String skippedReason;
+
+        IndexNeed(String source, String table) {
+            this.source = source;
+            this.table = table;
+        }
+
+        static IndexNeed skipped(String source, String reason) {
+            IndexNeed need = new IndexNeed(source, null);
+            need.skippedReason = reason;
+            return need;
+        }
+
+        void add(ColumnUse use) {
+            String column = use.column.column;
+            if (use.kind == Kind.EQUALITY) {
+                equality.add(column);
+            } else if (use.kind == Kind.SORT) {
+                if (!sort.contains(column)) {
+                    sort.add(column);
+                }
+            } else if (range == null) {
+                range = column;
+            }
+        }
+
+        //동등 조건 다음에 오는 컬럼 : 정렬 -> 범위
+        List<String> ordered() {
+            List<String> ordered = new ArrayList<>();
+            for (String column : sort) {
+                if (!equality.contains(column)) {
+                    ordered.add(column);
+                }
+            }
+            if (range != null && !equality.contains(range) && !ordered.contains(range)) {
+                ordered.add(range);
+            }
+            return ordered;
+        }
+
+        List<String> columns() {
+            List<String> columns = new ArrayList<>(equality);
+            columns.addAll(ordered());
+            if (covering != null) {
+                covering.stream()
+                        .filter(column -> !columns.contains(column) && !primaryKey.contains(column))
+                        .forEach(columns::add);
+            }
+            return columns;
+        }
+
+        /**
+         * index로 이 쿼리를 처리할 수 있는지
+         * - 앞쪽 컬럼이 동등 조건 컬럼(순서 무관), 그 다음이 정렬/범위 컬럼(순서대로)
+         * - 커버링이면 조회 컬럼이 인덱스(+ PK)에 모두 있어야 한다
+         */
+        boolean isSatisfiedBy(List<String> index) {
+            List<String> ordered = ordered();
+            int equalityCount = equality.size();
+            if (index.size() < equalityCount + ordered.size()) {
+                return false;
+            }
+            if (!new HashSet<>(index.subList(0, equalityCount)).equals(equality)) {
+                return false;
+            }
+            if (!index.subList(equalityCount, equalityCount + ordered.size()).equals(ordered)) {
+                return false;
+            }
+            if (covering == null) {
+                return !index.isEmpty();
+            }
+            Set<String> available = new HashSet<>(index);
+            available.addAll(primaryKey);
+            return available.containsAll(covering) && (equalityCount + ordered.size() > 0 || !index.equals(primaryKey));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package study.datajpa.repository.support;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 인덱스 제안 : 테이블, 컬럼 순서와 이 인덱스가 필요한 쿼리 메서드(출처)
+ * - 엔티티에 붙일 @Index와 마이그레이션 DDL 두 가지 형태로 출력한다
+ */
+@Getter
+public class IndexSuggestion {
+
+    private final String name;
+    private final String table;
+    private final List<String> columns;
+    private final Set<String> sources = new TreeSet<>(); //MemberRepository.findByUsernameAndAgeGreaterThan
+
+    public IndexSuggestion(String name, String table, List<String> columns) {
+        this.name = name;
+        this.table = table;
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    //idx_member_username_age
+    public static IndexSuggestion of(String table, List<String> columns) {
+        return new IndexSuggestion("idx_" + table + "_" + String.join("_", columns), table, columns);
+    }
+
+    void addSource(String source) {
+        sources.add(source);
+    }
+
+    public String toIndexAnnotation() {
+        return String.format("@Index(name = \"%s\", columnList = \"%s\")", name, String.join(", ", columns));
+    }
+
+    public String toDdl() {
+        return String.format("create index %s on %s (%s);", name, table, String.join(", ", columns));
+    }
+
+    @Override
+    public String toString() {
+        return table + " (" + String.join(", ", columns) + ") <- " + sources;
+    }
+}
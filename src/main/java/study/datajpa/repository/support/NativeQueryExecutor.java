@@ -0,0 +1,228 @@
+package study.datajpa.repository.support;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 가벼운 네이티브 쿼리 실행기 : 영속성 컨텍스트의 커넥션으로 SQL을 직접 실행하고 ResultSet 컬럼을 인덱스로 DTO에 바로 담는다
+ * - @Query(nativeQuery = true) + 인터페이스 Projection은 행마다 Object[] -> Tuple(Map) -> 프록시를 거친다
+ * - 여기서는 rs.getLong(1), rs.getString(2) ... 로 읽어서 DTO 생성자/세터에 바로 넘긴다 (중간 객체 X, 컬럼 이름 조회 X)
+ * - forEach는 미리 만든 DTO 한 개에 행마다 값만 덮어쓴다 (행 수와 무관하게 DTO 할당 1회)
+ * - fetchSize로 DB에서 끊어서 가져오는 크기를 정하고, 페이징은 count 쿼리를 생략할 수 있다 (한 건 더 조회)
+ * 주의
+ * 1. 하이버네이트 네이티브 쿼리처럼 실행 전에 flush 한다 (FlushMode.MANUAL인 읽기 전용 트랜잭션은 생략)
+ * 2. 트랜잭션 안에서 호출해야 한다 (영속성 컨텍스트의 커넥션 사용)
+ * 3. SQL은 그대로 실행되므로 컬럼 순서와 매퍼의 인덱스가 맞아야 하고, 페이징 정렬은 SQL에 직접 작성한다
+ */
+@Component
+public class NativeQueryExecutor {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * 미리 만든 대상 객체에 현재 행의 값을 덮어쓴다
+     */
+    @FunctionalInterface
+    public interface RowBinder<T> {
+        void bind(ResultSet rs, T target) throws SQLException;
+    }
+
+    public <T> List<T> list(String sql, RowMapper<T> mapper, Object... parameters) {
+        return session().doReturningWork(connection -> {
+            try (PreparedStatement statement = prepare(connection, sql, QueryStreams.DEFAULT_FETCH_SIZE, parameters);
+                 ResultSet rs = statement.executeQuery()) {
+                return read(rs, mapper, Integer.MAX_VALUE, new ArrayList<>());
+            }
+        });
+    }
+
+    /**
+     * 페이징 조회 : sql 뒤에 limit ? offset ? 을 붙인다 (H2, PostgreSQL, MySQL)
+     * @param skipCount true면 count 쿼리 없이 한 건 더 조회해서 다음 페이지 여부만 판단 (CountMode.HAS_NEXT와 같은 방식)
+     *                  false면 첫 페이지인데 content가 페이지 크기보다 작은 경우 등을 제외하고 countSql을 실행한다
+     */
+    public <T> Page<T> page(String sql, String countSql, Pageable pageable, boolean skipCount,
+                            RowMapper<T> mapper, Object... parameters) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(list(sql, mapper, parameters));
+        }
+        if (pageable.getSort().isSorted()) {
+            throw new IllegalArgumentException("네이티브 쿼리의 정렬은 SQL에 직접 작성해야 합니다: " + pageable.getSort());
+        }
+        int pageSize = pageable.getPageSize();
+        int limit = skipCount ? pageSize + 1 : pageSize;
+        Object[] pageParameters = append(parameters, limit, pageable.getOffset());
+
+        List<T> result = session().doReturningWork(connection -> {
+            try (PreparedStatement statement = prepare(connection, sql + " limit ? offset ?", Math.min(limit, QueryStreams.DEFAULT_FETCH_SIZE), pageParameters);
+                 ResultSet rs = statement.executeQuery()) {
+                return read(rs, mapper, limit, new ArrayList<>(limit)); //페이지 크기만큼 미리 할당
+            }
+        });
+
+        if (skipCount) {
+            boolean hasNext = result.size() > pageSize;
+            List<T> content = hasNext ? result.subList(0, pageSize) : result;
+            return new PageImpl<>(content, pageable, pageable.getOffset() + content.size() + (hasNext ? 1 : 0));
+        }
+        return PageableExecutionUtils.getPage(result, pageable, () -> count(countSql, parameters));
+    }
+
+    /**
+     * 전체 조회 결과를 target 하나에 한 행씩 담아서 action에 넘긴다
+     * - action이 받은 객체는 다음 행에서 덮어쓰이므로 보관하려면 복사해야 한다
+     * @return 처리한 행 수
+     */
+    public <T> long forEach(String sql, int fetchSize, T target, RowBinder<? super T> binder,
+                            Consumer<? super T> action, Object... parameters) {
+        return session().doReturningWork(connection -> {
+            try (PreparedStatement statement = prepare(connection, sql, fetchSize, parameters);
+                 ResultSet rs = statement.executeQuery()) {
+                long rows = 0;
+                while (rs.next()) {
+                    binder.bind(rs, target);
+                    action.accept(target);
+                    rows++;
+                }
+                return rows;
+            }
+        });
+    }
+
+    /**
+     * 행마다 DTO를 만들어서 흘려보내는 Stream (QueryStreams와 같은 규칙)
+     * - 커서가 열려 있는 동안 트랜잭션의 커넥션을 사용하므로 트랜잭션 안에서 try-with-resources로 소비해야 한다
+     */
+    public <T> Stream<T> stream(String sql, int fetchSize, RowMapper<T> mapper, Object... parameters) {
+        SessionImplementor session = (SessionImplementor) session();
+        //트랜잭션이 끝날 때까지 세션이 같은 커넥션을 잡고 있으므로 작업 밖에서 계속 사용해도 된다
+        Connection connection = session.doReturningWork(c -> c);
+        PreparedStatement statement = null;
+        try {
+            statement = prepare(connection, sql, fetchSize, parameters);
+            ResultSet rs = statement.executeQuery();
+            PreparedStatement opened = statement;
+            return StreamSupport.stream(new ResultSetSpliterator<>(session, sql, rs, mapper), false)
+                    .onClose(() -> close(session, sql, opened)); //statement를 닫으면 ResultSet도 닫힌다
+        } catch (SQLException e) {
+            if (statement != null) {
+                close(session, sql, statement);
+            }
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "네이티브 쿼리 실행 실패", sql);
+        }
+    }
+
+    private long count(String countSql, Object[] parameters) {
+        return session().doReturningWork(connection -> {
+            try (PreparedStatement statement = prepare(connection, countSql, 0, parameters);
+                 ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        });
+    }
+
+    //트랜잭션 밖에서 꺼낸 세션은 바로 닫히므로 트랜잭션을 요구한다 (@ReadOnlyQuery, @Transactional)
+    private Session session() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("네이티브 쿼리 실행기는 트랜잭션 안에서 사용해야 합니다");
+        }
+        Session session = em.unwrap(Session.class);
+        if (session.getHibernateFlushMode() != FlushMode.MANUAL) {
+            session.flush(); //아직 반영되지 않은 변경을 SQL로 읽을 수 있도록 (네이티브 쿼리의 AUTO flush와 같은 동작)
+        }
+        return session;
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, int fetchSize, Object[] parameters) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            if (fetchSize > 0) {
+                statement.setFetchSize(fetchSize);
+            }
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    private static <T> List<T> read(ResultSet rs, RowMapper<T> mapper, int limit, List<T> result) throws SQLException {
+        int rowNum = 0;
+        while (rowNum < limit && rs.next()) {
+            result.add(mapper.mapRow(rs, rowNum++));
+        }
+        return result;
+    }
+
+    private static Object[] append(Object[] parameters, Object... more) {
+        Object[] appended = new Object[parameters.length + more.length];
+        System.arraycopy(parameters, 0, appended, 0, parameters.length);
+        System.arraycopy(more, 0, appended, parameters.length, more.length);
+        return appended;
+    }
+
+    private static void close(SessionImplementor session, String sql, PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "네이티브 쿼리 커서 닫기 실패", sql);
+        }
+    }
+
+    private static class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final SessionImplementor session;
+        private final String sql;
+        private final ResultSet rs;
+        private final RowMapper<T> mapper;
+        private int rowNum;
+
+        ResultSetSpliterator(SessionImplementor session, String sql, ResultSet rs, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.session = session;
+            this.sql = sql;
+            this.rs = rs;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                if (!rs.next()) {
+                    return false;
+                }
+                action.accept(mapper.mapRow(rs, rowNum++));
+                return true;
+            } catch (SQLException e) {
+                throw session.getJdbcServices().getSqlExceptionHelper().convert(e, "네이티브 쿼리 결과 읽기 실패", sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package study.datajpa.repository.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.OptimisticLockException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락(@Version) 충돌 시 재시도
+ * - 시도마다 새 트랜잭션(새 영속성 컨텍스트)에서 조회부터 다시 실행한다 -> 이미 트랜잭션 안이면 재시도할 수 없으므로 예외
+ * - 재시도 전 대기 : 0 ~ min(maxBackoff, initialBackoff * 2^(시도 - 1)) 사이의 랜덤 값 (full jitter, 충돌한 쓰기끼리 다시 부딪히지 않도록 흩뜨린다)
+ * - datajpa.optimistic.conflicts (operation 태그) : 충돌 수, datajpa.optimistic.exhausted : 재시도를 다 쓰고 실패한 수, datajpa.optimistic.attempts : 성공까지 시도 수
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                   @Value("${datajpa.optimistic-retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${datajpa.optimistic-retry.initial-backoff:5ms}") Duration initialBackoff,
+                                   @Value("${datajpa.optimistic-retry.max-backoff:100ms}") Duration maxBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    /**
+     * @param operation 지표 태그 (ex. Member.addAge)
+     * @param action    트랜잭션 안에서 실행할 조회 + 수정 (커밋 시점의 버전 검사까지 포함해서 재시도한다)
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("낙관적 락 재시도는 트랜잭션 밖에서 호출해야 합니다: " + operation);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = transactionTemplate.execute(status -> action.get());
+                DistributionSummary.builder("datajpa.optimistic.attempts").tag("operation", operation)
+                        .register(meterRegistry).record(attempt);
+                return result;
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                meterRegistry.counter("datajpa.optimistic.conflicts", "operation", operation).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("datajpa.optimistic.exhausted", "operation", operation).increment();
+                    throw e;
+                }
+                log.debug("낙관적 락 충돌 [{}] {}번째 시도", operation, attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("낙관적 락 재시도 대기 중 인터럽트", e);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package study.datajpa.repository.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import study.datajpa.repository.CountMode;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * CountMode에 따라 Page를 만들어 주는 지원 클래스
+ * - content 쿼리와 count 쿼리를 받아서 페이징(offset, limit)을 적용하고 전체 수를 구하는 방식만 바꾼다
+ * - 리포지토리에 @Query로 선언한 Page 메서드는 선언된 JPQL(value, countQuery)을 그대로 가져와서 CountMode를 적용한다
+ * - CountMode.PARALLEL의 count는 전용 커넥션 풀(page-count, datajpa.page-count.parallel-connections 개)과 전용 스레드에서 실행한다
+ *   요청 스레드는 커넥션을 쥔 채로 count를 기다리므로, 같은 풀에서 커넥션을 더 얻으면 동시 요청이 풀 크기만큼 몰렸을 때 서로를 기다리며 멈춘다
+ */
+@Component
+public class PageCountSupport implements DisposableBean {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final long ttlMillis;
+    private final Map<String, CachedCount> cache;
+    private final Map<Method, DeclaredPageQuery> declaredQueries = new ConcurrentHashMap<>(); //리포지토리 메서드 수만큼만 생긴다
+    private final HikariDataSource countDataSource;
+    private final ThreadPoolExecutor countExecutor;
+
+    public PageCountSupport(@Value("${datajpa.page-count.ttl-seconds:30}") long ttlSeconds,
+                            @Value("${datajpa.page-count.max-entries:1000}") int maxEntries,
+                            @Value("${datajpa.page-count.parallel-connections:2}") int parallelConnections,
+                            @Value("${datajpa.page-count.parallel-timeout:5s}") Duration parallelTimeout,
+                            DataSourceProperties dataSourceProperties) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) { //accessOrder = true -> LRU
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCount> eldest) {
+                return size() > maxEntries; //가득 차면 가장 오래 사용하지 않은 count 하나만 제거
+            }
+        });
+        //DataSource 빈으로 등록하지 않는다 (등록하면 스프링 부트의 기본 DataSource 자동 설정이 빠진다), 첫 PARALLEL 조회 때 풀이 시작된다
+        this.countDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.countDataSource.setPoolName("page-count");
+        this.countDataSource.setMaximumPoolSize(parallelConnections);
+        this.countDataSource.setMinimumIdle(0);
+        this.countDataSource.setConnectionTimeout(parallelTimeout.toMillis());
+        this.countDataSource.setReadOnly(true);
+        //스레드 수 = 커넥션 수, 큐가 가득 차면 호출한 스레드에서 실행 (이때도 전용 풀의 커넥션을 사용한다)
+        this.countExecutor = new ThreadPoolExecutor(parallelConnections, parallelConnections, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "page-count");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public <T> Page<T> getPage(TypedQuery<T> contentQuery, TypedQuery<Long> countQuery, Class<?> domainClass,
+                               Pageable pageable, CountMode countMode) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(contentQuery.getResultList());
+        }
+        contentQuery.setFirstResult((int) pageable.getOffset());
+
+        if (countMode == CountMode.HAS_NEXT) {
+            List<T> result = contentQuery.setMaxResults(pageable.getPageSize() + 1).getResultList(); //한 건 더 조회
+            boolean hasNext = result.size() > pageable.getPageSize();
+            List<T> content = hasNext ? result.subList(0, pageable.getPageSize()) : result;
+            //다음 페이지가 있으면 최소 한 건이 더 있다는 의미로 +1 -> Page.hasNext()가 올바르게 계산된다
+            return new PageImpl<>(content, pageable, pageable.getOffset() + content.size() + (hasNext ? 1 : 0));
+        }
+
+        //쓰기 트랜잭션 안에서는 EXACT : 다른 커넥션의 count는 아직 flush/커밋하지 않은 변경을 보지 못해서 content와 totalElements가 어긋난다
+        if (countMode == CountMode.PARALLEL && !isWriteTransactionActive()) {
+            //count를 먼저 보내고 content를 조회하므로 응답 시간은 두 쿼리의 합이 아니라 느린 쪽을 따른다
+            //(count가 필요 없는 경우에도 이미 실행되므로 첫 페이지가 대부분 한 페이지 이하인 조회에는 맞지 않는다)
+            CompletableFuture<Long> total = countAsync(countQuery);
+            List<T> content = contentQuery.setMaxResults(pageable.getPageSize()).getResultList();
+            return PageableExecutionUtils.getPage(content, pageable, total::join);
+        }
+
+        List<T> content = contentQuery.setMaxResults(pageable.getPageSize()).getResultList();
+        //첫 페이지인데 content가 페이지 크기보다 작은 경우처럼 전체 수를 계산할 수 있으면 count 쿼리를 생략한다
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(countQuery, domainClass, countMode));
+    }
+
+    /**
+     * 리포지토리에 @Query로 선언한 Page 메서드를 CountMode로 실행
+     * - countQuery가 없으면 스프링 데이터 JPA와 같은 방법으로 count 쿼리를 만든다 (QueryUtils.createCountQueryFor)
+     * - args는 Pageable, Sort를 뺀 메서드 파라미터 순서대로 넘긴다
+     *   @Param이 있으면 이름(:username)으로, 없으면 스프링 데이터 JPA처럼 위치(?1, ?2 ...)로 바인딩한다 (-parameters 컴파일 옵션과 무관)
+     * - 바인딩되지 않은 파라미터가 남으면 실행하지 않고 IllegalArgumentException
+     */
+    public <T> Page<T> getPage(Class<?> repositoryInterface, String methodName, Class<T> domainClass,
+                               Pageable pageable, CountMode countMode, Object... args) {
+        DeclaredPageQuery declared = declaredQueries.computeIfAbsent(findQueryMethod(repositoryInterface, methodName), DeclaredPageQuery::new);
+        if (declared.parameterNames.size() != args.length) {
+            throw new IllegalArgumentException(methodName + "의 파라미터는 " + declared.parameterNames + " 입니다 (@Param이 없으면 위치)");
+        }
+        TypedQuery<T> contentQuery = em.createQuery(QueryUtils.applySorting(declared.query, pageable.getSort(), declared.alias), domainClass);
+        TypedQuery<Long> countQuery = em.createQuery(declared.countQuery, Long.class);
+        for (int i = 0; i < args.length; i++) {
+            bindIfPresent(contentQuery, declared.parameterNames.get(i), i + 1, args[i]);
+            bindIfPresent(countQuery, declared.parameterNames.get(i), i + 1, args[i]); //count 쿼리는 일부 파라미터만 사용할 수 있다
+        }
+        assertAllBound(contentQuery, methodName);
+        assertAllBound(countQuery, methodName);
+        return getPage(contentQuery, countQuery, domainClass, pageable, countMode);
+    }
+
+    //오버로드된 메서드가 여러 개면 어느 쿼리인지 알 수 없으므로 실패
+    private Method findQueryMethod(Class<?> repositoryInterface, String methodName) {
+        List<Method> methods = Arrays.stream(repositoryInterface.getMethods())
+                .filter(method -> method.getName().equals(methodName) && Page.class.equals(method.getReturnType()))
+                .filter(method -> method.isAnnotationPresent(org.springframework.data.jpa.repository.Query.class))
+                .collect(Collectors.toList());
+        if (methods.size() != 1) {
+            throw new IllegalArgumentException("@Query를 선언한 Page 메서드가 " + methods.size() + "개 입니다: "
+                    + repositoryInterface.getSimpleName() + "." + methodName);
+        }
+        return methods.get(0);
+    }
+
+    //name이 null이면(@Param 없음) 위치로 바인딩
+    private void bindIfPresent(TypedQuery<?> query, String name, int position, Object value) {
+        for (Parameter<?> parameter : query.getParameters()) {
+            if (name != null && name.equals(parameter.getName())) {
+                query.setParameter(name, value);
+                return;
+            }
+            if (name == null && parameter.getName() == null && Integer.valueOf(position).equals(parameter.getPosition())) {
+                query.setParameter(position, value);
+                return;
+            }
+        }
+    }
+
+    private void assertAllBound(TypedQuery<?> query, String methodName) {
+        for (Parameter<?> parameter : query.getParameters()) {
+            if (!query.isBound(parameter)) {
+                String name = parameter.getName() != null ? ":" + parameter.getName() : "?" + parameter.getPosition();
+                throw new IllegalArgumentException(methodName + "의 쿼리 파라미터 " + name + "에 바인딩할 값이 없습니다 (@Param 이름 또는 위치 확인)");
+            }
+        }
+    }
+
+    private long count(TypedQuery<Long> countQuery, Class<?> domainClass, CountMode countMode) {
+        switch (countMode) {
+            case CACHED:
+                return cachedCount(countQuery);
+            case ESTIMATED:
+                if (countQuery.getParameters().isEmpty()) {
+                    Long estimated = estimatedCount(domainClass);
+                    if (estimated != null) {
+                        return estimated;
+                    }
+                }
+                return countQuery.getSingleResult(); //조건이 있거나 추정치를 구할 수 없는 DB면 정확한 count
+            default:
+                return countQuery.getSingleResult();
+        }
+    }
+
+    private static boolean isWriteTransactionActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * 쿼리 객체는 영속성 컨텍스트에 묶여 있어 다른 스레드에서 실행할 수 없으므로, JPQL과 파라미터만 넘겨서
+     * 전용 풀의 커넥션으로 연 세션에서 다시 만든다 (트랜잭션 매니저와 애플리케이션 커넥션 풀을 거치지 않는다)
+     */
+    private CompletableFuture<Long> countAsync(TypedQuery<Long> countQuery) {
+        String jpql = countQuery.unwrap(Query.class).getQueryString();
+        Map<Parameter<?>, Object> parameters = new HashMap<>();
+        for (Parameter<?> parameter : countQuery.getParameters()) {
+            parameters.put(parameter, countQuery.getParameterValue(parameter));
+        }
+        SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection connection = countDataSource.getConnection();
+                 Session session = sessionFactory.withOptions().connection(connection).openSession()) {
+                TypedQuery<Long> query = session.createQuery(jpql, Long.class);
+                parameters.forEach((parameter, value) -> {
+                    if (parameter.getName() != null) {
+                        query.setParameter(parameter.getName(), value);
+                    } else {
+                        query.setParameter(parameter.getPosition(), value);
+                    }
+                });
+                return query.getSingleResult();
+            } catch (SQLException e) {
+                throw new DataAccessResourceFailureException("count 전용 커넥션을 얻지 못했습니다", e);
+            }
+        }, countExecutor);
+    }
+
+    private long cachedCount(TypedQuery<Long> countQuery) {
+        String key = cacheKey(countQuery);
+        long now = System.currentTimeMillis();
+        CachedCount cached = cache.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.count;
+        }
+
+        long count = countQuery.getSingleResult();
+        cache.put(key, new CachedCount(count, now + ttlMillis)); //만료된 항목은 다시 조회할 때 덮어쓰고, 남은 것은 LRU로 밀려난다
+        return count;
+    }
+
+    //count JPQL + 바인딩된 파라미터 값
+    @SuppressWarnings("unchecked")
+    private String cacheKey(TypedQuery<Long> countQuery) {
+        Map<String, Object> parameters = new TreeMap<>();
+        for (Parameter<?> parameter : countQuery.getParameters()) {
+            String name = parameter.getName() != null ? parameter.getName() : String.valueOf(parameter.getPosition());
+            parameters.put(name, countQuery.getParameterValue(parameter));
+        }
+        return countQuery.unwrap(Query.class).getQueryString() + parameters;
+    }
+
+    /**
+     * 테이블 통계의 추정 row 수, 지원하지 않는 DB이거나 통계가 없으면 null
+     * - PostgreSQL의 reltuples는 한 번도 VACUUM/ANALYZE 하지 않은 테이블이면 -1 (14 이전 버전은 0)
+     */
+    private Long estimatedCount(Class<?> domainClass) {
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersister(domainClass);
+        if (!(persister instanceof AbstractEntityPersister)) {
+            return null;
+        }
+        String tableName = ((AbstractEntityPersister) persister).getTableName();
+
+        String sql;
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        if (dialect instanceof H2Dialect) {
+            sql = "select row_count_estimate from information_schema.tables where table_name = ?1";
+            tableName = tableName.toUpperCase();
+        } else if (dialect instanceof PostgreSQL81Dialect) {
+            sql = "select cast(reltuples as bigint) from pg_class where relname = ?1";
+        } else if (dialect instanceof MySQLDialect) {
+            sql = "select table_rows from information_schema.tables where table_schema = database() and table_name = ?1";
+        } else {
+            return null;
+        }
+
+        List<?> result = em.createNativeQuery(sql)
+                .setParameter(1, tableName)
+                .getResultList();
+        if (result.isEmpty() || result.get(0) == null) {
+            return null;
+        }
+        long estimated = ((Number) result.get(0)).longValue();
+        return estimated < 0 ? null : estimated; //음수는 추정치 없음 -> 정확한 count
+    }
+
+    //@Query(value, countQuery)와 바인딩할 파라미터 이름 (@Param이 없으면 null -> 위치로 바인딩)
+    private static class DeclaredPageQuery {
+        private final String query;
+        private final String countQuery;
+        private final String alias;
+        private final List<String> parameterNames = new ArrayList<>();
+
+        private DeclaredPageQuery(Method method) {
+            org.springframework.data.jpa.repository.Query declared = method.getAnnotation(org.springframework.data.jpa.repository.Query.class);
+            if (declared.nativeQuery()) {
+                throw new IllegalArgumentException("네이티브 쿼리는 지원하지 않습니다: " + method);
+            }
+            this.query = declared.value();
+            this.countQuery = StringUtils.hasText(declared.countQuery()) ? declared.countQuery() : QueryUtils.createCountQueryFor(declared.value());
+            this.alias = QueryUtils.detectAlias(declared.value());
+            for (java.lang.reflect.Parameter parameter : method.getParameters()) {
+                if (Pageable.class.equals(parameter.getType()) || Sort.class.equals(parameter.getType())) {
+                    continue;
+                }
+                Param param = parameter.getAnnotation(Param.class);
+                parameterNames.add(param != null ? param.value() : null); //parameter.getName()은 -parameters 없이 컴파일하면 arg0
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        countExecutor.shutdownNow();
+        countDataSource.close();
+    }
+
+    private static class CachedCount {
+        private final long count;
+        private final long expiresAt;
+
+        private CachedCount(long count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package study.datajpa.repository.support;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 모양(shape)과 값(parameter)을 분리한 Specification
+ * - 조건을 경로("m.username", "t.name")와 연산(=, like, is null)으로 표현하고, 값은 따로 가지고 있는다
+ * - 같은 조건에서 JPQL("where m.username = :p0")과 Criteria(toPredicate)를 모두 만들어 내므로 두 실행 방식의 결과가 같다
+ *   (JPQL 문자열을 직접 받지 않으므로 문자열 리터럴 안의 '?'를 파라미터로 잘못 바꾸는 일도 없다)
+ * - 값만 다르고 모양이 같은 조건은 같은 JPQL로 렌더링되므로 SpecificationQueryCache에서 재사용된다 (Criteria 트리 생성, JPQL 렌더링 생략)
+ * - 조인은 별칭으로 구분한다 : 같은 경로 + 같은 별칭 + 같은 조인 타입은 한 번만 들어가고, 같은 별칭을 다르게 선언하면 IllegalArgumentException
+ * - 조인 경로의 앞부분은 root 별칭이거나 먼저 선언한 조인의 별칭이어야 한다 (자기 자신, 선언하지 않은 별칭 -> IllegalArgumentException)
+ * - root 별칭은 'm'으로 고정, like 패턴의 이스케이프 문자는 '\'
+ */
+public final class ParameterizedSpecification<T> implements Specification<T> {
+
+    public static final String ROOT_ALIAS = "m";
+    public static final char ESCAPE = '\\';
+
+    private static final ParameterizedSpecification<?> EMPTY = new ParameterizedSpecification<>(Collections.emptyMap(), null);
+
+    private final Map<String, JoinSpec> joins; //별칭 -> 조인
+    private final Condition condition; //null이면 조건 없음
+
+    private ParameterizedSpecification(Map<String, JoinSpec> joins, Condition condition) {
+        this.joins = joins;
+        this.condition = condition;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ParameterizedSpecification<T> empty() {
+        return (ParameterizedSpecification<T>) EMPTY;
+    }
+
+    //path = value
+    public static <T> ParameterizedSpecification<T> equal(String path, Object value) {
+        return of(new Comparison(path, Operator.EQUAL, false, value));
+    }
+
+    //lower(path) = lower(value)
+    public static <T> ParameterizedSpecification<T> equalIgnoreCase(String path, String value) {
+        requireValue(path, value);
+        return of(new Comparison(path, Operator.EQUAL, true, value.toLowerCase(Locale.ROOT)));
+    }
+
+    //path like pattern escape '\'
+    public static <T> ParameterizedSpecification<T> like(String path, String pattern) {
+        return of(new Comparison(path, Operator.LIKE, false, pattern));
+    }
+
+    //lower(path) like lower(pattern) escape '\'
+    public static <T> ParameterizedSpecification<T> likeIgnoreCase(String path, String pattern) {
+        requireValue(path, pattern);
+        return of(new Comparison(path, Operator.LIKE, true, pattern.toLowerCase(Locale.ROOT)));
+    }
+
+    public static <T> ParameterizedSpecification<T> isNull(String path) {
+        return of(new IsNull(path));
+    }
+
+    //lower(null)은 어떤 행과도 같지 않으므로 null 비교는 isNull로 표현한다
+    private static void requireValue(String path, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("대소문자 무시 비교 값이 null 입니다 (null 조건은 isNull 사용): " + path);
+        }
+    }
+
+    private static <T> ParameterizedSpecification<T> of(Condition condition) {
+        return new ParameterizedSpecification<>(Collections.emptyMap(), condition);
+    }
+
+    /**
+     * 조건에 필요한 조인
+     * @param path  조인할 연관 경로 ("m.team", "t.parent") - 앞부분은 root 별칭이거나 먼저 선언한 다른 조인의 별칭
+     * @param alias 조건의 경로에서 사용할 별칭 ("t")
+     */
+    public ParameterizedSpecification<T> join(String path, String alias, JoinType joinType) {
+        Map<String, JoinSpec> joined = new LinkedHashMap<>(joins);
+        addJoin(joined, new JoinSpec(path, alias, joinType));
+        return new ParameterizedSpecification<>(joined, condition);
+    }
+
+    public ParameterizedSpecification<T> and(ParameterizedSpecification<T> other) {
+        return combine(other, Junction.AND);
+    }
+
+    public ParameterizedSpecification<T> or(ParameterizedSpecification<T> other) {
+        return combine(other, Junction.OR);
+    }
+
+    private ParameterizedSpecification<T> combine(ParameterizedSpecification<T> other, String operator) {
+        if (other == null || other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        Map<String, JoinSpec> joined = new LinkedHashMap<>(joins);
+        other.joins.values().forEach(join -> addJoin(joined, join));
+        return new ParameterizedSpecification<>(joined, new Junction(operator, condition, other.condition));
+    }
+
+    private static void addJoin(Map<String, JoinSpec> joins, JoinSpec join) {
+        if (ROOT_ALIAS.equals(join.alias)) {
+            throw new IllegalArgumentException("root 별칭(" + ROOT_ALIAS + ")은 조인 별칭으로 사용할 수 없습니다: " + join);
+        }
+        //부모 별칭이 먼저 선언되어 있어야 하므로 조인 사이에 순환이 생기지 않는다 (renderJoin, Froms.get 재귀가 끝난다)
+        if (join.alias.equals(join.parentAlias())) {
+            throw new IllegalArgumentException("조인 경로가 자기 별칭으로 시작합니다: " + join);
+        }
+        if (!ROOT_ALIAS.equals(join.parentAlias()) && !joins.containsKey(join.parentAlias())) {
+            throw new IllegalArgumentException("선언하지 않은 별칭으로 시작하는 조인 경로입니다: " + join);
+        }
+        JoinSpec existing = joins.putIfAbsent(join.alias, join);
+        if (existing != null && !existing.equals(join)) {
+            throw new IllegalArgumentException("같은 별칭의 조인이 다르게 선언되었습니다: " + existing + " / " + join);
+        }
+    }
+
+    public boolean isEmpty() {
+        return condition == null;
+    }
+
+    //값을 뺀 조건의 모양 (캐시 키)
+    public String getShape() {
+        return renderJoinsAndWhere();
+    }
+
+    //JPQL 파라미터 :p0, :p1 ... 에 바인딩할 값 (렌더링 순서)
+    public List<Object> getValues() {
+        List<Object> values = new ArrayList<>();
+        if (!isEmpty()) {
+            condition.collectValues(values);
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    //선언된 조인 별칭 (조인을 덧붙이는 쪽에서 별칭이 겹치지 않게 할 때 사용)
+    public Set<String> getJoinAliases() {
+        return Collections.unmodifiableSet(joins.keySet());
+    }
+
+    /**
+     * from 절 이후 JPQL : " join m.team t where (m.username = :p0) and (t.name = :p1)"
+     */
+    public String renderFromClause(String entityName) {
+        return " from " + entityName + " " + ROOT_ALIAS + renderJoinsAndWhere();
+    }
+
+    private String renderJoinsAndWhere() {
+        StringBuilder jpql = new StringBuilder();
+        List<String> rendered = new ArrayList<>();
+        for (String alias : joins.keySet()) {
+            renderJoin(alias, jpql, rendered);
+        }
+        if (!isEmpty()) {
+            jpql.append(" where ");
+            condition.render(jpql, new int[]{0});
+        }
+        return jpql.toString();
+    }
+
+    //부모 별칭의 조인이 먼저 나오도록 렌더링 (조건을 조합한 순서와 상관없이)
+    private void renderJoin(String alias, StringBuilder jpql, List<String> rendered) {
+        if (rendered.contains(alias)) {
+            return;
+        }
+        JoinSpec join = joins.get(alias);
+        if (joins.containsKey(join.parentAlias())) {
+            renderJoin(join.parentAlias(), jpql, rendered);
+        }
+        jpql.append(" ").append(join.keyword()).append(" ").append(join.path).append(" ").append(join.alias);
+        rendered.add(alias);
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        Froms froms = new Froms(root, joins);
+        joins.keySet().forEach(froms::get); //조건에서 쓰지 않는 inner join도 JPQL처럼 결과를 거르므로 모두 만든다
+        return isEmpty() ? null : condition.toPredicate(froms, criteriaBuilder);
+    }
+
+    //Criteria에서 별칭 -> From (root, 조인), 별칭마다 조인을 한 번만 만든다
+    private static class Froms {
+        private final Map<String, JoinSpec> joins;
+        private final Map<String, From<?, ?>> froms = new HashMap<>();
+
+        private Froms(Root<?> root, Map<String, JoinSpec> joins) {
+            this.joins = joins;
+            froms.put(ROOT_ALIAS, root);
+        }
+
+        private From<?, ?> get(String alias) {
+            From<?, ?> from = froms.get(alias);
+            if (from == null) {
+                JoinSpec join = joins.get(alias);
+                if (join == null) {
+                    throw new IllegalArgumentException("선언하지 않은 별칭입니다: " + alias);
+                }
+                from = get(join.parentAlias()).join(join.attribute(), join.joinType);
+                froms.put(alias, from);
+            }
+            return from;
+        }
+
+        //"t.name" -> t(From).get("name"), 임베디드 타입은 "m.address.city"
+        private Path<?> path(String path) {
+            String[] names = path.split("\\.");
+            Path<?> current = get(names[0]);
+            for (int i = 1; i < names.length; i++) {
+                current = current.get(names[i]);
+            }
+            return current;
+        }
+    }
+
+    private static class JoinSpec {
+        private final String path;
+        private final String alias;
+        private final JoinType joinType;
+
+        private JoinSpec(String path, String alias, JoinType joinType) {
+            if (path.indexOf('.') < 0) {
+                throw new IllegalArgumentException("조인 경로는 '별칭.연관' 형식이어야 합니다: " + path);
+            }
+            if (joinType == JoinType.RIGHT) {
+                throw new IllegalArgumentException("right join은 지원하지 않습니다: " + path);
+            }
+            this.path = path;
+            this.alias = alias;
+            this.joinType = joinType;
+        }
+
+        private String parentAlias() {
+            return path.substring(0, path.indexOf('.'));
+        }
+
+        private String attribute() {
+            return path.substring(path.indexOf('.') + 1);
+        }
+
+        private String keyword() {
+            return joinType == JoinType.LEFT ? "left join" : "join";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof JoinSpec)) {
+                return false;
+            }
+            JoinSpec other = (JoinSpec) o;
+            return path.equals(other.path) && alias.equals(other.alias) && joinType == other.joinType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, alias, joinType);
+        }
+
+        @Override
+        public String toString() {
+            return keyword() + " " + path + " " + alias;
+        }
+    }
+
+    /**
+     * 조건 트리 : 같은 노드에서 JPQL과 Criteria를 만든다
+     */
+    private interface Condition {
+
+        //index[0] : 다음 파라미터 번호
+        void render(StringBuilder jpql, int[] index);
+
+        void collectValues(List<Object> values);
+
+        Predicate toPredicate(Froms froms, CriteriaBuilder builder);
+    }
+
+    private enum Operator {
+        EQUAL, LIKE
+    }
+
+    private static class Comparison implements Condition {
+        private final String path;
+        private final Operator operator;
+        private final boolean lower;
+        private final Object value;
+
+        private Comparison(String path, Operator operator, boolean lower, Object value) {
+            this.path = path;
+            this.operator = operator;
+            this.lower = lower;
+            this.value = value;
+        }
+
+        @Override
+        public void render(StringBuilder jpql, int[] index) {
+            jpql.append(lower ? "lower(" + path + ")" : path)
+                    .append(operator == Operator.EQUAL ? " = " : " like ")
+                    .append(":p").append(index[0]++);
+            if (operator == Operator.LIKE) {
+                jpql.append(" escape '").append(ESCAPE).append("'");
+            }
+        }
+
+        @Override
+        public void collectValues(List<Object> values) {
+            values.add(value);
+        }
+
+        @Override
+        public Predicate toPredicate(Froms froms, CriteriaBuilder builder) {
+            Path<?> attribute = froms.path(path);
+            if (operator == Operator.EQUAL && !lower) {
+                return builder.equal(attribute, value);
+            }
+            Expression<String> string = attribute.as(String.class);
+            Expression<String> column = lower ? builder.lower(string) : string;
+            return operator == Operator.EQUAL ? builder.equal(column, value) : builder.like(column, (String) value, ESCAPE);
+        }
+    }
+
+    private static class IsNull implements Condition {
+        private final String path;
+
+        private IsNull(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void render(StringBuilder jpql, int[] index) {
+            jpql.append(path).append(" is null");
+        }
+
+        @Override
+        public void collectValues(List<Object> values) {
+        }
+
+        @Override
+        public Predicate toPredicate(Froms froms, CriteriaBuilder builder) {
+            return builder.isNull(froms.path(path));
+        }
+    }
+
+    private static class Junction implements Condition {
+        private static final String AND = "and";
+        private static final String OR = "or";
+
+        private final String operator;
+        private final Condition left;
+        private final Condition right;
+
+        private Junction(String operator, Condition left, Condition right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public void render(StringBuilder jpql, int[] index) {
+            jpql.append("(");
+            left.render(jpql, index);
+            jpql.append(") ").append(operator).append(" (");
+            right.render(jpql, index);
+            jpql.append(")");
+        }
+
+        @Override
+        public void collectValues(List<Object> values) {
+            left.collectValues(values);
+            right.collectValues(values);
+        }
+
+        @Override
+        public Predicate toPredicate(Froms froms, CriteriaBuilder builder) {
+            Predicate leftPredicate = left.toPredicate(froms, builder);
+            Predicate rightPredicate = right.toPredicate(froms, builder);
+            return AND.equals(operator) ? builder.and(leftPredicate, rightPredicate) : builder.or(leftPredicate, rightPredicate);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package study.datajpa.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.ProjectionInformation;
+import org.springframework.data.repository.query.ReturnedType;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 중첩 Closed Projection에 필요한 컬럼만 조회하는 쿼리 생성기
+ * - 스프링 데이터는 프로젝션 대상이 root 엔티티를 넘어가면 연관 엔티티(team)의 모든 컬럼을 조회한다 (NestedClosedProjections 주석 참고)
+ * - Projection의 getter를 따라가서 필요한 속성 경로(username, team.name)만 select 하는 Tuple 쿼리를 만들고, 연관 엔티티는 left join 한다
+ * - 결과는 중첩 Map(username, team -> {name})으로 조립해서 Projection으로 변환한다
+ * - 조건은 ParameterizedSpecification으로 받는다 (JPQL 문자열을 받지 않으므로 값이 쿼리에 섞이지 않고, 모양별로 JPQL을 캐시한다)
+ * - 동적 Projection 조회도 처리한다 : DTO 클래스는 생성자 표현식(select new), Open Projection은 엔티티를 조회해서 변환
+ * - JPQL 캐시 키는 (엔티티, Projection 타입, 조건 모양), 최대 datajpa.projection-query.max-size 개 (LRU)
+ */
+@Component
+public class ProjectionQuerySupport {
+
+    public static final String ROOT_ALIAS = ParameterizedSpecification.ROOT_ALIAS;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ProjectionFactory projectionFactory;
+    private final Map<QueryKey, ProjectionQuery> queries;
+
+    public ProjectionQuerySupport(CompiledProjectionFactory projectionFactory,
+                                  @Value("${datajpa.projection-query.max-size:256}") int maxSize) {
+        this.projectionFactory = projectionFactory;
+        this.queries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) { //accessOrder = true -> LRU
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QueryKey, ProjectionQuery> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public <D, T> List<T> findAll(Class<D> domainClass, Class<T> projectionType, ParameterizedSpecification<D> spec) {
+        ProjectionQuery projectionQuery = queries.computeIfAbsent(new QueryKey(domainClass, projectionType, spec.getShape()),
+                key -> createQuery(domainClass, projectionType, spec));
+
+        switch (projectionQuery.mode) {
+            case TUPLE:
+                List<T> result = new ArrayList<>();
+                for (Tuple tuple : bind(em.createQuery(projectionQuery.jpql, Tuple.class), spec).getResultList()) {
+                    result.add(projectionFactory.createProjection(projectionType, projectionQuery.toMap(tuple)));
+                }
+                return result;
+            case CONSTRUCTOR:
+                return bind(em.createQuery(projectionQuery.jpql, projectionType), spec).getResultList();
+            default:
+                List<D> entities = bind(em.createQuery(projectionQuery.jpql, domainClass), spec).getResultList();
+                if (projectionType.isAssignableFrom(domainClass)) {
+                    return entities.stream().map(projectionType::cast).collect(Collectors.toList());
+                }
+                return entities.stream().map(entity -> projectionFactory.createProjection(projectionType, entity)).collect(Collectors.toList());
+        }
+    }
+
+    private <R> TypedQuery<R> bind(TypedQuery<R> query, ParameterizedSpecification<?> spec) {
+        List<Object> values = spec.getValues();
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter("p" + i, values.get(i));
+        }
+        return query;
+    }
+
+    private ProjectionQuery createQuery(Class<?> domainClass, Class<?> projectionType, ParameterizedSpecification<?> spec) {
+        EntityType<?> entityType = em.getMetamodel().entity(domainClass);
+        ReturnedType returnedType = ReturnedType.of(projectionType, domainClass, projectionFactory);
+        if (!returnedType.isProjecting()) {
+            return new ProjectionQuery(Mode.ENTITY, "select " + ROOT_ALIAS + spec.renderFromClause(entityType.getName()), null);
+        }
+        if (projectionType.isInterface()) {
+            if (!projectionFactory.getProjectionInformation(projectionType).isClosed()) {
+                //Open Projection(@Value)은 SpEL이 엔티티 전체를 참조할 수 있으므로 엔티티를 조회해서 변환한다
+                return new ProjectionQuery(Mode.ENTITY, "select " + ROOT_ALIAS + spec.renderFromClause(entityType.getName()), null);
+            }
+            return createTupleQuery(entityType, projectionType, spec);
+        }
+        if (!returnedType.needsCustomConstruction()) {
+            throw new IllegalArgumentException("생성자 파라미터로 조회할 속성을 알 수 없는 DTO입니다: " + projectionType.getName());
+        }
+        //select new study.datajpa.repository.UsernameOnlyDto(m.username) from Member m where ...
+        String arguments = returnedType.getInputProperties().stream()
+                .map(property -> ROOT_ALIAS + "." + property)
+                .collect(Collectors.joining(", "));
+        return new ProjectionQuery(Mode.CONSTRUCTOR,
+                "select new " + projectionType.getName() + "(" + arguments + ")" + spec.renderFromClause(entityType.getName()), null);
+    }
+
+    /**
+     * select m.username as c0, j0.name as c1 from Member m left join m.team j0 where ...
+     * - Projection용 조인 별칭(j0, j1...)은 조건에서 선언한 별칭과 겹치지 않게 고른다
+     */
+    private ProjectionQuery createTupleQuery(EntityType<?> entityType, Class<?> projectionType, ParameterizedSpecification<?> spec) {
+        List<String[]> paths = new ArrayList<>();
+        collectPaths(entityType, projectionType, new String[0], paths);
+
+        Set<String> usedAliases = new HashSet<>(spec.getJoinAliases());
+        Map<String, String> joinAliases = new LinkedHashMap<>(); //연관 속성 경로(team) -> 별칭(j0)
+        StringBuilder joins = new StringBuilder();
+        List<String> selections = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            String[] path = paths.get(i);
+            String alias = ROOT_ALIAS;
+            for (int depth = 0; depth < path.length - 1; depth++) {
+                String joinPath = String.join(".", Arrays.copyOf(path, depth + 1));
+                String joinAlias = joinAliases.get(joinPath);
+                if (joinAlias == null) {
+                    int index = joinAliases.size();
+                    while (usedAliases.contains("j" + index)) {
+                        index++;
+                    }
+                    joinAlias = "j" + index;
+                    usedAliases.add(joinAlias);
+                    joinAliases.put(joinPath, joinAlias);
+                    joins.append(" left join ").append(alias).append(".").append(path[depth]).append(" ").append(joinAlias);
+                }
+                alias = joinAlias;
+            }
+            selections.add(alias + "." + path[path.length - 1] + " as c" + i);
+        }
+
+        String jpql = "select " + String.join(", ", selections)
+                + " from " + entityType.getName() + " " + ROOT_ALIAS
+                + joins
+                + spec.getShape(); //조건의 조인 + where
+        return new ProjectionQuery(Mode.TUPLE, jpql, paths);
+    }
+
+    //Projection getter -> 속성 경로, 연관 엔티티를 가리키는 중첩 Projection이면 안으로 들어간다
+    private void collectPaths(ManagedType<?> managedType, Class<?> projectionType, String[] prefix, List<String[]> paths) {
+        ProjectionInformation information = projectionFactory.getProjectionInformation(projectionType);
+        if (!information.isClosed()) {
+            throw new IllegalArgumentException("중첩 Projection도 Closed Projection이어야 합니다: " + projectionType.getName());
+        }
+        for (PropertyDescriptor property : information.getInputProperties()) {
+            Attribute<?, ?> attribute = managedType.getAttribute(property.getName());
+            if (attribute.isCollection()) {
+                throw new IllegalArgumentException("컬렉션 속성은 지원하지 않습니다: " + property.getName());
+            }
+            String[] path = Arrays.copyOf(prefix, prefix.length + 1);
+            path[prefix.length] = property.getName();
+
+            if (attribute.isAssociation() && property.getPropertyType().isInterface()) {
+                ManagedType<?> target = em.getMetamodel().managedType(attribute.getJavaType());
+                collectPaths(target, property.getPropertyType(), path, paths);
+            } else {
+                paths.add(path);
+            }
+        }
+    }
+
+    private enum Mode {
+        TUPLE, //필요한 컬럼만 select -> 중첩 Map -> Projection
+        CONSTRUCTOR, //select new Dto(...)
+        ENTITY //select m -> (Open) Projection
+    }
+
+    private static class ProjectionQuery {
+
+        private final Mode mode;
+        private final String jpql;
+        private final List<String[]> paths; //TUPLE일 때만 사용
+
+        ProjectionQuery(Mode mode, String jpql, List<String[]> paths) {
+            this.mode = mode;
+            this.jpql = jpql;
+            this.paths = paths;
+        }
+
+        //c0, c1... -> {username: .., team: {name: ..}}, left join 결과가 없으면(모든 값이 null) 중첩 Map 대신 null
+        @SuppressWarnings("unchecked")
+        Map<String, Object> toMap(Tuple tuple) {
+            Map<String, Object> root = new LinkedHashMap<>();
+            for (int i = 0; i < paths.size(); i++) {
+                String[] path = paths.get(i);
+                Object value = tuple.get("c" + i);
+                Map<String, Object> current = root;
+                for (int depth = 0; depth < path.length - 1; depth++) {
+                    current = (Map<String, Object>) current.computeIfAbsent(path[depth], key -> new LinkedHashMap<String, Object>());
+                }
+                current.put(path[path.length - 1], value);
+            }
+            root.replaceAll((key, value) -> isEmpty(value) ? null : value);
+            return root;
+        }
+
+        private static boolean isEmpty(Object value) {
+            return value instanceof Map && ((Map<?, ?>) value).values().stream().allMatch(v -> v == null || isEmpty(v));
+        }
+    }
+
+    private static class QueryKey {
+
+        private final Class<?> domainClass;
+        private final Class<?> projectionType;
+        private final String shape;
+
+        QueryKey(Class<?> domainClass, Class<?> projectionType, String shape) {
+            this.domainClass = domainClass;
+            this.projectionType = projectionType;
+            this.shape = shape;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof QueryKey)) {
+                return false;
+            }
+            QueryKey that = (QueryKey) o;
+            return domainClass.equals(that.domainClass) && projectionType.equals(that.projectionType) && shape.equals(that.shape);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(domainClass, projectionType, shape);
+        }
+    }
+}
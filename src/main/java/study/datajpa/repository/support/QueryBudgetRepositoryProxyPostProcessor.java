@@ -0,0 +1,53 @@
+package study.datajpa.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+import org.springframework.stereotype.Component;
+import study.datajpa.jdbc.QueryBudget;
+import study.datajpa.jdbc.QueryBudgetVerifier;
+import study.datajpa.jdbc.QueryCount;
+import study.datajpa.jdbc.QueryCountHolder;
+
+import java.lang.reflect.Method;
+
+/**
+ * @QueryBudget이 붙은 리포지토리 메서드(또는 인터페이스)의 SQL 실행 수를 검사한다
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryBudgetRepositoryProxyPostProcessor implements RepositoryProxyPostProcessor {
+
+    private final QueryBudgetVerifier verifier;
+
+    @Override
+    public void postProcess(ProxyFactory factory, RepositoryInformation repositoryInformation) {
+        Class<?> repositoryInterface = repositoryInformation.getRepositoryInterface();
+
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            Method method = invocation.getMethod();
+            QueryBudget budget = findBudget(method, repositoryInterface);
+            if (budget == null) {
+                return invocation.proceed();
+            }
+
+            QueryCount count = QueryCountHolder.start(repositoryInterface.getSimpleName() + "." + method.getName());
+            Object result;
+            try {
+                result = invocation.proceed();
+            } finally {
+                QueryCountHolder.stop();
+            }
+            verifier.verify(count, budget, true);
+            return result;
+        });
+    }
+
+    private QueryBudget findBudget(Method method, Class<?> repositoryInterface) {
+        QueryBudget budget = AnnotatedElementUtils.findMergedAnnotation(method, QueryBudget.class);
+        return budget != null ? budget : AnnotatedElementUtils.findMergedAnnotation(repositoryInterface, QueryBudget.class);
+    }
+}
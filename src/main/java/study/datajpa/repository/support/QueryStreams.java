@@ -0,0 +1,58 @@
+package study.datajpa.repository.support;
+
+import org.hibernate.CacheMode;
+import org.hibernate.query.Query;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * 전체 조회 결과를 List로 한 번에 올리지 않고 Stream으로 한 건씩 흘려보내는 유틸리티
+ * - Hibernate Query.stream()은 내부적으로 ScrollableResults(FORWARD_ONLY, 서버 사이드 커서)를 사용한다
+ * - fetchSize 만큼씩 DB에서 끊어서 가져오므로 힙 사용량이 전체 row 수와 무관하게 일정하다
+ * 주의
+ * 1. 커서가 열려 있는 동안 커넥션을 사용하므로 반드시 트랜잭션 안에서 소비해야 한다
+ * 2. 다 쓴 스트림은 try-with-resources로 닫아야 커서(ResultSet)가 반환된다
+ */
+public final class QueryStreams {
+
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private QueryStreams() {
+    }
+
+    /**
+     * DTO, 스칼라 조회용 : 영속성 컨텍스트에 엔티티가 쌓이지 않는다
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Stream<T> stream(TypedQuery<T> query, int fetchSize) {
+        Query<T> hibernateQuery = query.unwrap(Query.class);
+        return hibernateQuery
+                .setFetchSize(fetchSize)
+                .setReadOnly(true) //스냅샷 생성 X -> 변경 감지 대상에서 제외
+                .setCacheMode(CacheMode.IGNORE) //2차 캐시에 대량으로 적재하지 않는다
+                .stream();
+    }
+
+    /**
+     * 엔티티 조회용 : 다음 엔티티를 꺼낼 때 직전 엔티티를 detach 해서 영속성 컨텍스트를 한 건 수준으로 유지한다
+     * (현재 처리 중인 엔티티는 아직 영속 상태이므로 지연 로딩도 가능하다)
+     */
+    public static <T> Stream<T> streamDetached(EntityManager em, TypedQuery<T> query, int fetchSize) {
+        AtomicReference<T> previous = new AtomicReference<>();
+        return stream(query, fetchSize)
+                .map(entity -> {
+                    detach(em, previous.getAndSet(entity));
+                    return entity;
+                })
+                .onClose(() -> detach(em, previous.getAndSet(null)));
+    }
+
+    private static void detach(EntityManager em, Object entity) {
+        if (entity != null && em.contains(entity)) {
+            em.detach(entity);
+        }
+    }
+}
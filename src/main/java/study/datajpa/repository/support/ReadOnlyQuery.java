@@ -0,0 +1,20 @@
+package study.datajpa.repository.support;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 읽기 전용 조회 : @QueryHints(org.hibernate.readOnly)를 메서드마다 붙이지 않고 리포지토리 단위로 적용한다
+ * - 트랜잭션 밖에서 호출되면 readOnly 트랜잭션을 열어서 실행한다 -> 조회한 엔티티는 읽기 전용(스냅샷 X -> 변경 감지 X), 자동 flush X
+ * - readOnly 트랜잭션 안에서는 그대로 실행하고, 쓰기 트랜잭션 안에서는 아무것도 바꾸지 않는다 (flush되지 않은 변경도 조회되고, 수정하면 UPDATE 된다)
+ * - 인터페이스에 붙이면 조회 메서드(find, get, query, read, search, count, exists...)에만 적용된다 (@Lock, @Modifying, Stream 반환 메서드 제외)
+ *   findById처럼 수정할 엔티티를 꺼내는 메서드까지 포함되므로, 엔티티를 수정하는 서비스에서 쓰는 리포지토리에는 메서드 단위로 붙인다
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnlyQuery {
+}
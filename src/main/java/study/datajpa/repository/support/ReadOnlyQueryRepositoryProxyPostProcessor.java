@@ -0,0 +1,100 @@
+package study.datajpa.repository.support;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @ReadOnlyQuery가 붙은 리포지토리 메서드(또는 인터페이스의 조회 메서드)를 읽기 전용으로 실행한다
+ * - 트랜잭션 밖: readOnly 트랜잭션으로 실행 -> JpaTransactionManager가 FlushMode.MANUAL, defaultReadOnly, 커넥션 readOnly까지 설정
+ *   (복제본 라우팅이 켜져 있으면 ReplicaRoutingDataSource가 복제본 커넥션을 준다)
+ * - readOnly 트랜잭션 안: 이미 읽기 전용이므로 그대로 실행
+ * - 쓰기 트랜잭션 안: 세션의 flush 모드와 읽기 전용 설정을 건드리지 않고 그대로 실행한다
+ *   (아직 flush되지 않은 변경을 조회 결과에 반영해야 하고, 조회한 엔티티를 수정하면 UPDATE 되어야 한다)
+ */
+@Component
+public class ReadOnlyQueryRepositoryProxyPostProcessor implements RepositoryProxyPostProcessor {
+
+    //스프링 데이터 쿼리 메서드의 조회 접두사
+    private static final List<String> READ_PREFIXES = List.of("find", "get", "query", "read", "search", "count", "exists");
+
+    private static final String READ_ONLY_HINT = "org.hibernate.readOnly";
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReadOnlyQueryRepositoryProxyPostProcessor(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void postProcess(ProxyFactory factory, RepositoryInformation repositoryInformation) {
+        Class<?> repositoryInterface = repositoryInformation.getRepositoryInterface();
+
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            if (!isReadOnly(invocation.getMethod(), repositoryInterface)) {
+                return invocation.proceed();
+            }
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                return proceedInReadOnlyTransaction(invocation);
+            }
+            return invocation.proceed(); //readOnly 트랜잭션은 이미 읽기 전용, 쓰기 트랜잭션은 호출한 쪽의 설정을 따른다
+        });
+    }
+
+    private boolean isReadOnly(Method method, Class<?> repositoryInterface) {
+        if (AnnotatedElementUtils.hasAnnotation(method, Lock.class) || AnnotatedElementUtils.hasAnnotation(method, Modifying.class)) {
+            return false;
+        }
+        if (Stream.class.isAssignableFrom(method.getReturnType())) {
+            return false; //트랜잭션이 끝난 뒤에 소비되므로 호출한 쪽의 트랜잭션을 따른다
+        }
+        if (AnnotatedElementUtils.hasAnnotation(method, ReadOnlyQuery.class) || hasReadOnlyHint(method)) {
+            return true;
+        }
+        return AnnotatedElementUtils.hasAnnotation(repositoryInterface, ReadOnlyQuery.class) && isQueryMethodName(method.getName());
+    }
+
+    //@QueryHints(org.hibernate.readOnly)도 같은 방식으로 실행 -> 트랜잭션 밖에서 호출되면 복제본으로 라우팅된다
+    private boolean hasReadOnlyHint(Method method) {
+        QueryHints queryHints = AnnotatedElementUtils.findMergedAnnotation(method, QueryHints.class);
+        return queryHints != null && Arrays.stream(queryHints.value())
+                .anyMatch(hint -> READ_ONLY_HINT.equals(hint.name()) && Boolean.parseBoolean(hint.value()));
+    }
+
+    private boolean isQueryMethodName(String methodName) {
+        return READ_PREFIXES.stream().anyMatch(methodName::startsWith);
+    }
+
+    private Object proceedInReadOnlyTransaction(MethodInvocation invocation) throws Throwable {
+        try {
+            return readOnlyTransaction.execute(status -> {
+                try {
+                    return invocation.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        } catch (UndeclaredThrowableException e) {
+            throw e.getUndeclaredThrowable();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package study.datajpa.repository.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.Session;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.jdbc.QueryCount;
+import study.datajpa.jdbc.QueryCountHolder;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+/**
+ * 리포지토리 메서드별 실행 통계 (/actuator/metrics, /actuator/prometheus)
+ * - datajpa.repository.invocations : 실행 시간 (repository, method, outcome 태그, 백분위 히스토그램)
+ * - datajpa.repository.rows : 반환한 행 수 (컬렉션, Page/Slice, Optional, 단건), count/exists/Stream/비동기 결과는 제외
+ * - datajpa.repository.statements : 호출 한 번에 실행된 SQL 수 (QueryCountListener 집계)
+ * - datajpa.persistence-context.entities : 커밋 직전 영속성 컨텍스트의 엔티티 수 (리포지토리를 호출한 트랜잭션마다 한 번)
+ * - 미터는 메서드별로 처음 호출할 때 한 번만 만들고 재사용한다 (호출마다 태그 조회 X)
+ * 커넥션 획득 대기 시간은 HikariCP 미터(hikaricp.connections.acquire)를 사용한다
+ */
+@Component
+public class RepositoryMetricsRepositoryProxyPostProcessor implements RepositoryProxyPostProcessor {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary persistenceContextEntities;
+
+    public RepositoryMetricsRepositoryProxyPostProcessor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.persistenceContextEntities = DistributionSummary.builder("datajpa.persistence-context.entities")
+                .description("커밋 직전 영속성 컨텍스트의 엔티티 수")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void postProcess(ProxyFactory factory, RepositoryInformation repositoryInformation) {
+        String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+        Map<Method, MethodMeters> meters = new ConcurrentHashMap<>(); //CrudRepository.findAll 등 공통 메서드도 리포지토리별로 집계
+
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            MethodMeters methodMeters = meters.computeIfAbsent(invocation.getMethod(), method -> new MethodMeters(repository, method));
+            registerCommitSynchronization();
+
+            QueryCount count = QueryCountHolder.start(methodMeters.name);
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Object result = invocation.proceed();
+                success = true;
+                int rows = rows(result);
+                if (rows >= 0) {
+                    methodMeters.rows.record(rows);
+                }
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                QueryCountHolder.stop();
+                (success ? methodMeters.success : methodMeters.error).record(elapsed, TimeUnit.NANOSECONDS);
+                methodMeters.statements.record(count.getTotal());
+            }
+        });
+    }
+
+    //리포지토리를 바깥 트랜잭션(서비스, 테스트) 안에서 호출하면 커밋 직전에 영속성 컨텍스트 크기를 기록한다
+    private void registerCommitSynchronization() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                persistenceContextEntities.record(em.unwrap(Session.class).getStatistics().getEntityCount());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RepositoryMetricsRepositoryProxyPostProcessor.this);
+            }
+        });
+    }
+
+    //반환한 행 수, 행으로 셀 수 없는 결과는 -1
+    private static int rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof Iterable
+                || result instanceof BaseStream || result instanceof Future) {
+            return -1;
+        }
+        return 1;
+    }
+
+    private class MethodMeters {
+
+        private final String name;
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+
+        MethodMeters(String repository, Method method) {
+            this.name = repository + "." + method.getName();
+            this.success = timer(repository, method, "success");
+            this.error = timer(repository, method, "error");
+            this.rows = DistributionSummary.builder("datajpa.repository.rows")
+                    .tags("repository", repository, "method", method.getName())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.statements = DistributionSummary.builder("datajpa.repository.statements")
+                    .tags("repository", repository, "method", method.getName())
+                    .register(meterRegistry);
+        }
+
+        private Timer timer(String repository, Method method, String outcome) {
+            return Timer.builder("datajpa.repository.invocations")
+                    .tags("repository", repository, "method", method.getName(), "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * ParameterizedSpecification의 모양(shape)별로 렌더링한 JPQL을 캐시한다 (LRU)
+ * - 같은 JPQL 문자열이 다시 사용되므로 하이버네이트 쿼리 플랜 캐시(JPQL -> SQL 변환 결과)도 그대로 적중한다
+ * - 적중률은 /actuator/metrics/datajpa.specification.cache (result=hit|miss) 로 확인
+ */
+@Component
+public class SpecificationQueryCache {
+
+    private final Map<String, String> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public SpecificationQueryCache(MeterRegistry meterRegistry,
+                                   @Value("${datajpa.specification-cache.max-size:256}") int maxSize) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) { //accessOrder = true -> LRU
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                boolean evict = size() > maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        });
+        this.hits = meterRegistry.counter("datajpa.specification.cache", "result", "hit");
+        this.misses = meterRegistry.counter("datajpa.specification.cache", "result", "miss");
+        this.evictions = meterRegistry.counter("datajpa.specification.cache.evictions");
+        Gauge.builder("datajpa.specification.cache.size", cache, Map::size).register(meterRegistry);
+    }
+
+    public <T> TypedQuery<T> createQuery(EntityManager em, Class<T> domainClass, ParameterizedSpecification<T> spec, Sort sort) {
+        String entityName = em.getMetamodel().entity(domainClass).getName();
+        String jpql = get(entityName + "|select|" + spec.getShape() + "|" + sort,
+                () -> QueryUtils.applySorting("select " + ParameterizedSpecification.ROOT_ALIAS + spec.renderFromClause(entityName),
+                        sort, ParameterizedSpecification.ROOT_ALIAS));
+        return bind(em.createQuery(jpql, domainClass), spec.getValues());
+    }
+
+    public <T> TypedQuery<Long> createCountQuery(EntityManager em, Class<T> domainClass, ParameterizedSpecification<T> spec) {
+        String entityName = em.getMetamodel().entity(domainClass).getName();
+        String jpql = get(entityName + "|count|" + spec.getShape(),
+                () -> "select count(" + ParameterizedSpecification.ROOT_ALIAS + ")" + spec.renderFromClause(entityName));
+        return bind(em.createQuery(jpql, Long.class), spec.getValues());
+    }
+
+    private String get(String key, Supplier<String> renderer) {
+        String jpql = cache.get(key);
+        if (jpql != null) {
+            hits.increment();
+            return jpql;
+        }
+        misses.increment();
+        jpql = renderer.get();
+        cache.put(key, jpql);
+        return jpql;
+    }
+
+    private <R> TypedQuery<R> bind(TypedQuery<R> query, List<Object> values) {
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter("p" + i, values.get(i));
+        }
+        return query;
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.repository.support;
+
+/**
+ * 식별자를 직접 할당하는 엔티티(Item 등)의 대량 등록/갱신 (리포지토리 프래그먼트)
+ * - save()는 식별자가 있으면 merge() -> 건마다 select 후 insert
+ * - 여기서는 select 없이 네이티브 MERGE / INSERT ... ON CONFLICT 한 문장을 JDBC 배치로 묶어서 전송한다
+ * - 엔티티 콜백, 영속성 컨텍스트, 2차 캐시를 거치지 않는다 (벌크 연산처럼 실행 후 해당 엔티티의 2차 캐시 영역을 비운다)
+ */
+public interface UpsertRepository<T> {
+
+    //없으면 등록, 있으면 갱신 (수정 가능한 컬럼만)
+    int upsertAll(Iterable<T> entities);
+
+    //없는 것만 등록, 이미 있으면 그대로 둔다
+    int insertAllIfAbsent(Iterable<T> entities);
+}
@@ -0,0 +1,224 @@
+package study.datajpa.repository.support;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.Assigned;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.entity.CoarseClock;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UpsertRepository 구현 : 엔티티 타입별로 하이버네이트 매핑 정보(테이블, 컬럼, 타입)에서 네이티브 문장을 한 번만 만든다
+ * - H2 등 : merge into t using (select cast(? as ..) as c1, ..) s on (t.id = s.id) when [matched then update ..] not matched then insert ..
+ * - PostgreSQL : insert .. on conflict (id) do update / do nothing
+ * - MySQL : insert .. on duplicate key update / insert ignore
+ * - 값은 하이버네이트 타입(nullSafeSet)으로 바인딩하고 hibernate.jdbc.batch_size 건씩 executeBatch 한다
+ * - 등록 시 비어 있는 @CreatedDate, @LastModifiedDate는 채운다 (Item.isNew()가 등록일로 판단하므로)
+ *   이미 있는 행을 갱신할 때는 이 컬럼들을 update 대상에서 빼서 원래 등록일을 유지한다
+ */
+public class UpsertRepositoryImpl<T> implements UpsertRepository<T> {
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final Map<Class<?>, UpsertStatements> statements = new ConcurrentHashMap<>();
+
+    @Override
+    @Transactional
+    public int upsertAll(Iterable<T> entities) {
+        return execute(entities, true);
+    }
+
+    @Override
+    @Transactional
+    public int insertAllIfAbsent(Iterable<T> entities) {
+        return execute(entities, false);
+    }
+
+    private int execute(Iterable<T> entities, boolean update) {
+        Iterator<T> iterator = entities.iterator();
+        if (!iterator.hasNext()) {
+            return 0;
+        }
+        em.flush(); //영속성 컨텍스트의 변경을 먼저 반영
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor sessionFactory = session.getFactory();
+        T first = iterator.next();
+        UpsertStatements upsert = statements.computeIfAbsent(first.getClass(), type -> new UpsertStatements(sessionFactory, type));
+        int batchSize = sessionFactory.getSessionFactoryOptions().getJdbcBatchSize() > 0
+                ? sessionFactory.getSessionFactoryOptions().getJdbcBatchSize() : DEFAULT_BATCH_SIZE;
+
+        int[] affected = {0};
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(update ? upsert.upsertSql : upsert.insertIfAbsentSql)) {
+                int pending = 0;
+                T entity = first;
+                while (entity != null) {
+                    upsert.bind(statement, entity, session);
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        affected[0] += sum(statement.executeBatch());
+                        pending = 0;
+                    }
+                    entity = iterator.hasNext() ? iterator.next() : null;
+                }
+                if (pending > 0) {
+                    affected[0] += sum(statement.executeBatch());
+                }
+            }
+        });
+        sessionFactory.getCache().evictEntityData(first.getClass());
+        return affected[0];
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return total;
+    }
+
+    //엔티티 타입 하나의 네이티브 문장과 바인딩 정보
+    private static class UpsertStatements {
+
+        private final AbstractEntityPersister persister;
+        private final int[] properties; //등록할 속성 (상태 배열 위치)
+        private final int[] auditDates; //비어 있으면 채울 @CreatedDate, @LastModifiedDate 속성
+        private final String upsertSql;
+        private final String insertIfAbsentSql;
+
+        UpsertStatements(SessionFactoryImplementor sessionFactory, Class<?> entityType) {
+            persister = (AbstractEntityPersister) sessionFactory.getMetamodel().entityPersister(entityType);
+            if (!(persister.getIdentifierGenerator() instanceof Assigned)) {
+                throw new IllegalArgumentException("식별자를 직접 할당하는 엔티티만 지원합니다: " + entityType.getName());
+            }
+            if (persister.isVersioned() || persister.isMultiTable()) {
+                throw new IllegalArgumentException("@Version, 상속(조인/테이블 분할) 엔티티는 지원하지 않습니다: " + entityType.getName());
+            }
+
+            List<Integer> insertable = new ArrayList<>();
+            List<Integer> audit = new ArrayList<>();
+            Type[] types = persister.getPropertyTypes();
+            for (int i = 0; i < types.length; i++) {
+                if (types[i].isCollectionType() || !persister.getPropertyInsertability()[i]) {
+                    continue;
+                }
+                insertable.add(i);
+                Field field = ReflectionUtils.findField(entityType, persister.getPropertyNames()[i]);
+                if (field != null && field.getType() == LocalDateTime.class
+                        && (field.isAnnotationPresent(CreatedDate.class) || field.isAnnotationPresent(LastModifiedDate.class))) {
+                    audit.add(i);
+                }
+            }
+            properties = insertable.stream().mapToInt(Integer::intValue).toArray();
+            auditDates = audit.stream().mapToInt(Integer::intValue).toArray();
+
+            Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+            List<String> idColumns = Arrays.asList(persister.getIdentifierColumnNames());
+            List<String> columns = new ArrayList<>(idColumns);
+            List<String> updateColumns = new ArrayList<>();
+            List<Integer> sqlTypes = new ArrayList<>();
+            for (int sqlType : persister.getIdentifierType().sqlTypes(sessionFactory)) {
+                sqlTypes.add(sqlType);
+            }
+            for (int property : properties) {
+                String[] propertyColumns = persister.getPropertyColumnNames(property);
+                columns.addAll(Arrays.asList(propertyColumns));
+                //bind()가 비어 있으면 채우는 감사 날짜(@CreatedDate 등)는 이미 있는 행의 값을 덮어쓰지 않도록 등록할 때만 넣는다
+                if (persister.getPropertyUpdateability()[property] && !audit.contains(property)) {
+                    updateColumns.addAll(Arrays.asList(propertyColumns));
+                }
+                for (int sqlType : types[property].sqlTypes(sessionFactory)) {
+                    sqlTypes.add(sqlType);
+                }
+            }
+
+            String table = persister.getTableName();
+            if (dialect instanceof PostgreSQL81Dialect) {
+                String insert = insertSql(table, columns) + " on conflict (" + String.join(", ", idColumns) + ")";
+                upsertSql = insert + (updateColumns.isEmpty() ? " do nothing" : " do update set " + assignments(updateColumns, "excluded.", ""));
+                insertIfAbsentSql = insert + " do nothing";
+            } else if (dialect instanceof MySQLDialect) {
+                String insert = insertSql(table, columns);
+                upsertSql = updateColumns.isEmpty()
+                        ? insert.replaceFirst("insert", "insert ignore")
+                        : insert + " on duplicate key update " + assignments(updateColumns, "values(", ")");
+                insertIfAbsentSql = insert.replaceFirst("insert", "insert ignore");
+            } else { //표준 MERGE (H2, SQL Server 등)
+                StringJoiner source = new StringJoiner(", ", "(select ", ")");
+                for (int i = 0; i < columns.size(); i++) {
+                    source.add("cast(? as " + dialect.getCastTypeName(sqlTypes.get(i)) + ") as " + columns.get(i));
+                }
+                StringJoiner on = new StringJoiner(" and ");
+                idColumns.forEach(column -> on.add("t." + column + " = s." + column));
+                StringJoiner values = new StringJoiner(", ");
+                columns.forEach(column -> values.add("s." + column));
+                String merge = "merge into " + table + " t using " + source + " s on (" + on + ")";
+                String notMatched = " when not matched then insert (" + String.join(", ", columns) + ") values (" + values + ")";
+                upsertSql = merge + (updateColumns.isEmpty() ? "" : " when matched then update set " + assignments(updateColumns, "s.", "")) + notMatched;
+                insertIfAbsentSql = merge + notMatched;
+            }
+        }
+
+        private static String insertSql(String table, List<String> columns) {
+            StringJoiner placeholders = new StringJoiner(", ");
+            columns.forEach(column -> placeholders.add("?"));
+            return "insert into " + table + " (" + String.join(", ", columns) + ") values (" + placeholders + ")";
+        }
+
+        //c1 = prefix + c1 + suffix, ...
+        private static String assignments(List<String> columns, String prefix, String suffix) {
+            StringJoiner assignments = new StringJoiner(", ");
+            columns.forEach(column -> assignments.add(column + " = " + prefix + column + suffix));
+            return assignments.toString();
+        }
+
+        void bind(PreparedStatement statement, Object entity, SessionImplementor session) throws SQLException {
+            LocalDateTime now = null;
+            for (int property : auditDates) {
+                if (persister.getPropertyValue(entity, property) == null) {
+                    now = now != null ? now : CoarseClock.SYSTEM.now();
+                    persister.setPropertyValue(entity, property, now);
+                }
+            }
+
+            Object id = persister.getIdentifier(entity, session);
+            if (id == null) {
+                throw new IllegalArgumentException("식별자가 없습니다: " + entity);
+            }
+            Type identifierType = persister.getIdentifierType();
+            identifierType.nullSafeSet(statement, id, 1, session);
+            int index = 1 + identifierType.getColumnSpan(session.getFactory());
+            Type[] types = persister.getPropertyTypes();
+            for (int property : properties) {
+                types[property].nullSafeSet(statement, persister.getPropertyValue(entity, property), index, session);
+                index += types[property].getColumnSpan(session.getFactory());
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.jdbc.QueryCount;
+import study.datajpa.jdbc.QueryCountHolder;
+import study.datajpa.repository.CountMode;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Transactional
+class MemberControllerTest {
+
+    @Autowired MemberController memberController;
+    @PersistenceContext EntityManager em;
+
+    /**
+     * 페이지를 MemberDto로 변환할 때 (MemberDto::new -> member.getTeam().getName())
+     * 팀 프록시들이 배치 페치(default_batch_fetch_size)로 한 번에 초기화되는지 확인
+     */
+    @Test
+    public void list_BatchFetchTeam() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(teamC);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, teamC));
+        em.persist(new Member("member4", 40, teamA));
+
+        em.flush();
+        em.clear();
+
+        //when
+        QueryCount count = QueryCountHolder.start("list");
+        Page<MemberDto> page;
+        try {
+            page = memberController.list(PageRequest.of(0, 10), CountMode.CACHED);
+        } finally {
+            QueryCountHolder.stop();
+        }
+
+        //then
+        assertThat(page.getContent()).extracting("teamName").containsExactlyInAnyOrder("teamA", "teamB", "teamC", "teamA");
+        //select Member 1 + select Team ... where team_id in (?, ?, ?) 1 (첫 페이지의 데이터가 페이지 크기보다 작으면 count 쿼리는 생략된다)
+        assertThat(count.getTotal()).isEqualTo(2);
+    }
+
+    /**
+     * 잘못된 커서 토큰, size < 1은 서버 오류(500)가 아니라 400 Bad Request
+     */
+    @Test
+    public void keysetList_BadRequest() {
+        ResponseStatusException badToken = assertThrows(ResponseStatusException.class, () -> memberController.keysetList("!invalid", 10, null));
+        ResponseStatusException badSize = assertThrows(ResponseStatusException.class, () -> memberController.keysetList(null, 0, null));
+
+        assertThat(badToken.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(badSize.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
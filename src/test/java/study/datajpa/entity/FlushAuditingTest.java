@@ -0,0 +1,54 @@
+package study.datajpa.entity;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.repository.ItemRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * datajpa.auditing.mode=flush : AuditingEntityListener 대신 FlushAuditingInterceptor가 감사 컬럼을 채운다
+ */
+@SpringBootTest(properties = "datajpa.auditing.mode=flush")
+@Transactional
+class FlushAuditingTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Test
+    public void flushAuditing() throws Exception {
+        //given
+        Member member1 = memberRepository.save(new Member("audit1")); //onSave
+        Member member2 = memberRepository.save(new Member("audit2"));
+        Item item = itemRepository.save(new Item("audit-item")); //@CreatedDate만 있는 엔티티 (isNew 판단에 사용)
+        em.flush();
+
+        //when
+        Thread.sleep(50);
+        member1.setUsername("audit1-changed");
+        em.flush(); //onFlushDirty
+        em.clear();
+
+        //then
+        Member findMember1 = memberRepository.findById(member1.getId()).get();
+        Member findMember2 = memberRepository.findById(member2.getId()).get();
+        assertThat(findMember1.getCreatedBy()).isNotNull();
+        assertThat(findMember1.getCreatedBy()).isEqualTo(findMember2.getCreatedBy()); //트랜잭션마다 AuditorAware 한 번
+        assertThat(findMember1.getLastModifiedDate()).isAfter(findMember1.getCreatedDate());
+        assertThat(findMember2.getLastModifiedDate()).isEqualTo(findMember2.getCreatedDate());
+        assertThat(item.isNew()).isFalse(); //상태 배열에 넣은 값이 엔티티에도 반영된다
+    }
+}
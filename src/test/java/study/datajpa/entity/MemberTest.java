@@ -60,6 +60,27 @@ class MemberTest {
         }
     }
 
+    @Test
+    public void changeTeamKeepsTeamVersion() {
+        //given
+        Team team = new Team("versionTeam");
+        em.persist(team);
+        em.flush();
+        Long version = team.getVersion();
+
+        //when
+        Member member = new Member("versionMember");
+        member.changeTeam(team); //영속 상태의 팀 컬렉션에 추가
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        //then
+        Team findTeam = em.find(Team.class, team.getId());
+        assertEquals(version, findTeam.getVersion()); //update team ... where version=? 이 나가지 않는다
+        assertEquals(1, findTeam.getMembers().size());
+    }
+
     @Test
     public void JpaEventBaseEntity() throws Exception {
         //given
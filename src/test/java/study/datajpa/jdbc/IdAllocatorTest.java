@@ -0,0 +1,110 @@
+package study.datajpa.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 식별자 할당기 : 여러 노드, 여러 스레드에서 중복 없이 할당되는지 확인
+ */
+class IdAllocatorTest {
+
+    HikariDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:idblock;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        new JdbcTemplate(dataSource).execute("drop table if exists id_block");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void blockIdAllocator() throws Exception {
+        //given : 같은 DB를 쓰는 두 노드
+        BlockIdAllocator node1 = new BlockIdAllocator(dataSource, 50, 1, "node1");
+        BlockIdAllocator node2 = new BlockIdAllocator(dataSource, 50, 1, "node2");
+
+        //when
+        Set<Long> ids = allocateConcurrently(List.of(node1, node2), 1000);
+
+        //then
+        assertThat(ids).hasSize(8 * 1000);
+        Long nextValue = new JdbcTemplate(dataSource).queryForObject("select next_value from id_block where name = 'member_seq'", Long.class);
+        assertThat(nextValue).isGreaterThan(ids.stream().mapToLong(Long::longValue).max().getAsLong()); //임대 상태가 테이블에 남는다
+    }
+
+    @Test
+    public void timeOrderedIdAllocator() throws Exception {
+        //when
+        TimeOrderedIdAllocator node1 = new TimeOrderedIdAllocator(1);
+        TimeOrderedIdAllocator node2 = new TimeOrderedIdAllocator(2);
+        Set<Long> ids = allocateConcurrently(List.of(node1, node2), 10000);
+
+        //then
+        assertThat(ids).hasSize(8 * 10000);
+        assertThat(ids).allMatch(id -> id > 0);
+    }
+
+    @Test
+    public void timeOrderedIdAllocatorIsMonotonic() {
+        //given : 시계가 멈춰 있어도(같은 밀리초) 순번이 넘치면 다음 밀리초를 빌려 쓴다
+        Clock fixed = Clock.fixed(Instant.parse("2021-01-01T00:00:00Z"), ZoneOffset.UTC);
+        TimeOrderedIdAllocator allocator = new TimeOrderedIdAllocator(3, fixed);
+
+        //when
+        long previous = 0;
+        for (int i = 0; i < 10000; i++) {
+            long id = allocator.nextId("member_seq");
+
+            //then
+            assertThat(id).isGreaterThan(previous);
+            assertThat(id >>> TimeOrderedIdAllocator.SEQUENCE_BITS & ((1 << TimeOrderedIdAllocator.NODE_BITS) - 1)).isEqualTo(3);
+            previous = id;
+        }
+    }
+
+    //노드마다 4개 스레드에서 count번씩 할당
+    private Set<Long> allocateConcurrently(List<? extends IdAllocator> allocators, int count) throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(allocators.size() * 4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (IdAllocator allocator : allocators) {
+                for (int thread = 0; thread < 4; thread++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < count; i++) {
+                            ids.add(allocator.nextId("member_seq"));
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,126 @@
+package study.datajpa.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 두 개 이상의 H2(mem) 인스턴스로 라우팅 확인 : 각 DB의 db_role 테이블에 자기 이름을 넣어두고 어디로 갔는지 조회한다
+ */
+class ReplicaRoutingDataSourceTest {
+
+    HikariDataSource primary;
+    HikariDataSource replica1;
+    HikariDataSource replica2;
+
+    @BeforeEach
+    public void setUp() {
+        primary = h2("primary");
+        replica1 = h2("replica1");
+        replica2 = h2("replica2");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        primary.close();
+        replica1.close();
+        replica2.close();
+    }
+
+    @Test
+    public void routeByReadOnly() {
+        //given
+        ReplicaRoutingDataSource routing = routing(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN, null);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new LazyConnectionDataSourceProxy(routing));
+
+        //when
+        String write = role(jdbcTemplate);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        String read1 = role(jdbcTemplate);
+        String read2 = role(jdbcTemplate);
+        String read3 = role(jdbcTemplate);
+
+        //then
+        assertThat(write).isEqualTo("primary");
+        assertThat(read1).isEqualTo("replica1"); //라운드 로빈
+        assertThat(read2).isEqualTo("replica2");
+        assertThat(read3).isEqualTo("replica1");
+    }
+
+    @Test
+    public void fallbackToPrimary() {
+        //given
+        ReplicaRoutingDataSource routing = routing(ReplicaRoutingDataSource.Strategy.LEAST_CONNECTIONS, null);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(routing);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //when
+        replica1.close(); //복제본 장애
+        routing.checkHealth();
+        String afterReplica1Down = role(jdbcTemplate);
+        replica2.close();
+        routing.checkHealth();
+        String afterAllDown = role(jdbcTemplate);
+
+        //then
+        assertThat(routing.getReplicaStatus()).containsEntry("replica1", false).containsEntry("replica2", false);
+        assertThat(afterReplica1Down).isEqualTo("replica2");
+        assertThat(afterAllDown).isEqualTo("primary"); //모든 복제본이 빠지면 primary
+    }
+
+    @Test
+    public void fallbackOnLag() {
+        //given
+        new JdbcTemplate(replica1).execute("create table replica_lag (seconds double)");
+        new JdbcTemplate(replica1).execute("insert into replica_lag values (30)"); //30초 지연
+        new JdbcTemplate(replica2).execute("create table replica_lag (seconds double)");
+        new JdbcTemplate(replica2).execute("insert into replica_lag values (1)");
+        ReplicaRoutingDataSource routing = routing(ReplicaRoutingDataSource.Strategy.ROUND_ROBIN, "select seconds from replica_lag");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(routing);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //when
+        routing.checkHealth();
+
+        //then
+        assertThat(routing.getReplicaStatus()).containsEntry("replica1", false).containsEntry("replica2", true);
+        assertThat(role(jdbcTemplate)).isEqualTo("replica2");
+        assertThat(role(jdbcTemplate)).isEqualTo("replica2");
+    }
+
+    private ReplicaRoutingDataSource routing(ReplicaRoutingDataSource.Strategy strategy, String lagQuery) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica1", replica1);
+        replicas.put("replica2", replica2);
+        return new ReplicaRoutingDataSource(primary, replicas, strategy, Duration.ofSeconds(10), lagQuery);
+    }
+
+    private String role(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("select name from db_role", String.class);
+    }
+
+    private HikariDataSource h2(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPoolName(name);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop table if exists db_role");
+        jdbcTemplate.execute("drop table if exists replica_lag");
+        jdbcTemplate.execute("create table db_role (name varchar(20))");
+        jdbcTemplate.update("insert into db_role values (?)", name);
+        return dataSource;
+    }
+}
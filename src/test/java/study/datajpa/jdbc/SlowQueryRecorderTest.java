@@ -0,0 +1,63 @@
+package study.datajpa.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 느린 SQL 보관 : threshold 미만은 무시, 가장 느린 maxEntries 건만 남고, select는 EXPLAIN 결과가 붙는다
+ */
+class SlowQueryRecorderTest {
+
+    HikariDataSource dataSource;
+    SlowQueryRecorder recorder;
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:slowquery;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        new JdbcTemplate(dataSource).execute("create table if not exists member (member_id bigint primary key, username varchar(255))");
+        recorder = new SlowQueryRecorder(Duration.ofMillis(10), 2, () -> dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        recorder.destroy();
+        dataSource.close();
+    }
+
+    @Test
+    public void keepsWorstQueries() throws Exception {
+        //when
+        recorder.record("select * from member where username = ?", () -> "select * from member where username = 'm1'",
+                "MemberRepository.findByUsername", TimeUnit.MILLISECONDS.toNanos(5)); //threshold 미만
+        recorder.record("select * from member where member_id = ?", () -> "select * from member where member_id = 1",
+                "MemberRepository.findById", TimeUnit.MILLISECONDS.toNanos(20));
+        recorder.record("update member set username = ? where member_id = ?", () -> "update member set username = 'm2' where member_id = 1",
+                "MemberRepository.save", TimeUnit.MILLISECONDS.toNanos(40));
+        recorder.record("select * from member", () -> "select * from member",
+                "MemberRepository.findAll", TimeUnit.MILLISECONDS.toNanos(30));
+
+        //then
+        List<SlowQuery> slowQueries = recorder.getSlowQueries();
+        assertThat(slowQueries).extracting("origin").containsExactly("MemberRepository.save", "MemberRepository.findAll");
+        assertThat(recorder.isSlow(TimeUnit.MILLISECONDS.toNanos(25))).isFalse(); //가득 찬 뒤에는 보관 중인 가장 빠른 건(30ms)보다 느려야 한다
+
+        SlowQuery select = slowQueries.get(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (select.getPlan() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(select.getPlan()).containsIgnoringCase("member");
+        assertThat(slowQueries.get(0).getPlan()).isNull(); //select만 EXPLAIN
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.repository.support.IndexAdvice;
+import study.datajpa.repository.support.IndexAdvisor;
+import study.datajpa.repository.support.IndexSuggestion;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired IndexAdvisor indexAdvisor;
+
+    /**
+     * 쿼리 메서드 카탈로그 -> 필요한 인덱스 -> 실제 스키마(ddl-auto: create)와 비교
+     */
+    @Test
+    public void advise() {
+        //when
+        IndexAdvice advice = indexAdvisor.advise();
+        advice.getMissing().forEach(suggestion -> System.out.println(suggestion + " = " + suggestion.toDdl()));
+
+        //then
+        //username = ? and age > ? : (username, member_id), (age, username, member_id)로는 age 범위를 인덱스에서 거를 수 없다
+        assertThat(advice.getMissing())
+                .filteredOn(suggestion -> suggestion.getSources().contains("MemberRepository.findByUsernameAndAgeGreaterThan"))
+                .extracting(IndexSuggestion::getColumns)
+                .containsExactly(List.of("username", "age"));
+        assertThat(advice.getMissing()).flatExtracting(IndexSuggestion::getSources)
+                .contains("MemberRepository.findByUsernameAndAgeGreaterThanEqual") //같은 제안으로 합쳐진다
+                .doesNotContain("MemberRepository.findUser", //username = ? and age = ? : (age, username, member_id)
+                        "MemberRepository.findSliceByAge", //age = ?
+                        "MemberRepository.findReadOnlyById", //PK
+                        "MemberRepository.findProjectionsDtoByUsername"); //커버링 (username) : (username, member_id)
+
+        //커버링 : select new MemberDto(m.id, m.username, t.name) from Member m join m.team t -> 조인 FK까지 인덱스에 포함
+        assertThat(advice.getMissing())
+                .filteredOn(suggestion -> suggestion.getSources().contains("MemberRepository.findMemberDto"))
+                .extracting(IndexSuggestion::getColumns)
+                .containsExactly(List.of("username", "team_id"));
+
+        assertThat(advice.getMissingDeclared()).isEmpty(); //@Table(indexes) 회귀 없음
+        assertThat(advice.getSkipped()).anyMatch(skipped -> skipped.startsWith("MemberRepository.findByNativeQuery"));
+    }
+}
@@ -7,6 +7,12 @@ import study.datajpa.entity.Item;
 
 import javax.persistence.EntityManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -30,6 +36,55 @@ class ItemRepositoryTest {
         Item item = new Item("A"); //식별자(PK)에 값이 셋팅된 경우 save에서 persist() 호출이 되지 않음(새로운 객체로 판단하지 X)
         itemRepository.save(item); //merge()가 호출된다
     }
+
+    /**
+     * 대량 등록 : save()는 건마다 select + insert(merge), upsertAll()은 select 없이 MERGE 한 문장을 JDBC 배치로 전송
+     */
+    @Test
+    public void upsertAll() {
+        //given
+        int count = 100_000;
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item("upsert-" + i));
+        }
+
+        //when
+        long start = System.nanoTime();
+        int inserted = itemRepository.upsertAll(items);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("upsertAll " + count + "건 = " + elapsedMillis + "ms (" + (count * 1000L / Math.max(elapsedMillis, 1)) + "건/초)");
+
+        int reinserted = itemRepository.insertAllIfAbsent(List.of(new Item("upsert-0"), new Item("upsert-new")));
+
+        //then
+        assertThat(inserted).isEqualTo(count);
+        assertThat(reinserted).isEqualTo(1); //이미 있는 upsert-0은 그대로
+        assertThat(itemRepository.count()).isGreaterThanOrEqualTo(count + 1);
+        assertThat(items.get(0).isNew()).isFalse(); //비어 있던 @CreatedDate를 채운다
+        assertThat(itemRepository.findById("upsert-1").get().isNew()).isFalse();
+    }
+
+    /**
+     * 이미 있는 식별자를 upsert 해도 원래 등록일(@CreatedDate)은 바뀌지 않는다
+     */
+    @Test
+    public void upsertAllKeepsCreateDate() throws InterruptedException {
+        //given
+        itemRepository.upsertAll(List.of(new Item("upsert-keep")));
+        LocalDateTime createDate = itemRepository.findById("upsert-keep").get().createDate;
+        TimeUnit.MILLISECONDS.sleep(50); //CoarseClock 단위(10ms)보다 충분히 지난 뒤 다시 등록
+
+        //when
+        Item again = new Item("upsert-keep");
+        itemRepository.upsertAll(List.of(again));
+
+        //then
+        assertThat(createDate).isNotNull();
+        assertThat(again.createDate).isAfter(createDate); //바인딩할 때는 새 등록일이 채워지지만
+        assertThat(itemRepository.findById("upsert-keep").get().createDate).isEqualTo(createDate); //행의 등록일은 그대로
+    }
+
     /**
      * [ 코드 설명 ]
      * 1. merge()는 기본적으로 엔티티가 DB에 있을 거라고 가정을 하고 동작한다.
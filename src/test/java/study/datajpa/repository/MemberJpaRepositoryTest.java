@@ -10,6 +10,7 @@ import study.datajpa.entity.Member;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -128,6 +129,26 @@ class MemberJpaRepositoryTest {
         assertThat(totalCount).isEqualTo(5);
     }
 
+    @Test
+    public void streamAll() {
+        //given
+        Member member1 = memberJpaRepository.save(new Member("member1", 10));
+        Member member2 = memberJpaRepository.save(new Member("member2", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        long count;
+        try (Stream<Member> stream = memberJpaRepository.streamAll()) { //커서를 닫기 위해 try-with-resources 사용
+            count = stream.filter(em::contains) //처리 중인 엔티티는 영속 상태
+                    .count();
+        }
+
+        //then
+        assertThat(count).isEqualTo(2);
+        assertThat(em.contains(memberJpaRepository.find(member1.getId()))).isTrue(); //다시 조회하면 새로 영속화
+    }
+
     @Test
     public void bulkUpdate() {
         //given
@@ -1,10 +1,25 @@
 package study.datajpa.repository;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
 import org.hibernate.query.NativeQuery;
+import org.hibernate.stat.Statistics;
 import org.hibernate.transform.Transformers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.data.domain.Example;
@@ -15,17 +30,45 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.ReadOnlyTransactionTaskDecorator;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.jdbc.QueryCount;
+import study.datajpa.jdbc.QueryCountHolder;
+import study.datajpa.repository.support.CompiledProjectionFactory;
+import study.datajpa.repository.support.ExampleSpecificationBuilder;
+import study.datajpa.repository.support.OptimisticRetryExecutor;
+import study.datajpa.repository.support.PageCountSupport;
+import study.datajpa.repository.support.ParameterizedSpecification;
+import study.datajpa.repository.support.ProjectionQuerySupport;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.JoinType;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
@@ -45,6 +88,14 @@ class MemberRepositoryTest {
     @Autowired TeamRepository teamRepository;
     @PersistenceContext EntityManager em;
     @Autowired MemberQueryRepository memberQueryRepository;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired OptimisticRetryExecutor optimisticRetryExecutor;
+    @Autowired ExampleSpecificationBuilder exampleSpecificationBuilder;
+    @Autowired CompiledProjectionFactory compiledProjectionFactory;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired PageCountSupport pageCountSupport;
+    @Value("${spring.datasource.hikari.maximum-pool-size}") int poolSize;
+    @Autowired ProjectionQuerySupport projectionQuerySupport;
 
     @Test
     public void testMember() {
@@ -610,6 +661,165 @@ class MemberRepositoryTest {
         assertThat(dtoPage.getSize()).isEqualTo(dtoPage.getPageable().getPageSize()).isEqualTo(3); //한번에 가져올 row 수
     }
 
+    /**
+     * count 전략 선택 : 같은 Page 형식으로 전체 수를 구하는 방법만 바꾼다
+     */
+    @Test
+    public void paging_CountMode() {
+        //given
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+
+        //when
+        Page<Member> hasNextPage = memberRepository.findByAge(10, pageRequest, CountMode.HAS_NEXT); //count 쿼리 X
+        Page<Member> cachedPage = memberRepository.findByAge(10, pageRequest, CountMode.CACHED); //count 쿼리 실행 후 캐시
+        memberRepository.save(new Member("member6", 10));
+        Page<Member> cachedPage2 = memberRepository.findByAge(10, pageRequest, CountMode.CACHED); //캐시된 count 사용
+        Page<Member> exactPage = memberRepository.findByAge(10, pageRequest, CountMode.EXACT);
+
+        //then
+        assertThat(hasNextPage.getContent()).extracting("username").containsExactly("member5", "member4", "member3");
+        assertThat(hasNextPage.hasNext()).isTrue();
+        assertThat(hasNextPage.getTotalElements()).isEqualTo(4); //다음 페이지에 최소 한 건 이상 있다
+        assertThat(cachedPage.getTotalElements()).isEqualTo(5);
+        assertThat(cachedPage2.getTotalElements()).isEqualTo(5); //TTL 동안은 이전 count
+        assertThat(exactPage.getTotalElements()).isEqualTo(6);
+    }
+
+    /**
+     * @Query로 선언한 Page 메서드의 count 전략 선택 : 선언된 JPQL과 countQuery를 그대로 사용한다
+     */
+    @Test
+    public void paging_DeclaredQueryCountMode() {
+        //given
+        for (int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("declared" + i, 10));
+        }
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username", "id")); //같은 이름의 회원이 있어도 순서가 정해지도록
+
+        //when
+        Page<Member> page = memberRepository.findMemberConfigCountQuery(pageRequest); //스프링 데이터 JPA 기본 동작
+        Page<Member> exactPage = memberRepository.findMemberConfigCountQuery(pageRequest, CountMode.EXACT);
+        Page<Member> hasNextPage = memberRepository.findMemberConfigCountQuery(pageRequest, CountMode.HAS_NEXT); //count 쿼리 X
+        Page<Member> derivedCountPage = memberRepository.findMemberNoConfigCountQuery(pageRequest, CountMode.EXACT); //countQuery 없음 -> 만들어서 사용
+
+        //then
+        assertThat(exactPage.getContent()).isEqualTo(page.getContent());
+        assertThat(exactPage.getTotalElements()).isEqualTo(page.getTotalElements());
+        assertThat(hasNextPage.getContent()).isEqualTo(page.getContent());
+        assertThat(hasNextPage.getTotalElements()).isEqualTo(4); //다음 페이지에 최소 한 건 이상 있다
+        assertThat(derivedCountPage.getTotalElements()).isEqualTo(page.getTotalElements());
+    }
+
+    /**
+     * 선언된 @Query 파라미터 바인딩 : @Param이 있으면 이름, 없으면 위치(?1, ?2 - Pageable 제외), 바인딩되지 않은 파라미터가 있으면 실패
+     */
+    @Test
+    public void paging_DeclaredQueryParameters() {
+        //given
+        memberRepository.save(new Member("declaredParam", 10));
+        memberRepository.save(new Member("declaredParam", 20));
+        memberRepository.save(new Member("declaredParam", 30));
+        PageRequest pageRequest = PageRequest.of(0, 1);
+
+        //when
+        Page<Member> positional = pageCountSupport.getPage(DeclaredPageQueries.class, "positional", Member.class,
+                pageRequest, CountMode.EXACT, "declaredParam", 20);
+        Page<Member> named = pageCountSupport.getPage(DeclaredPageQueries.class, "named", Member.class,
+                pageRequest, CountMode.EXACT, "declaredParam");
+
+        //then
+        assertThat(positional.getTotalElements()).isEqualTo(2); //age >= 20
+        assertThat(named.getTotalElements()).isEqualTo(3);
+        Assertions.assertThrows(IllegalArgumentException.class, //@Param이 없으면 위치로 바인딩 -> :username은 바인딩되지 않는다
+                () -> pageCountSupport.getPage(DeclaredPageQueries.class, "missingParam", Member.class, pageRequest, CountMode.EXACT, "declaredParam"));
+    }
+
+    //리포지토리가 아니라 @Query 선언만 읽는다
+    interface DeclaredPageQueries {
+        @Query("select m from Member m where m.username = ?1 and m.age >= ?2")
+        Page<Member> positional(String username, Pageable pageable, int age);
+
+        @Query(value = "select m from Member m where m.username = :username", countQuery = "select count(m) from Member m where m.username = :username")
+        Page<Member> named(@Param("username") String username, Pageable pageable);
+
+        @Query("select m from Member m where m.username = :username")
+        Page<Member> missingParam(String username, Pageable pageable);
+    }
+
+    /**
+     * 키셋(Seek) 페이징 : offset 없이 마지막 조회 위치(username, id) 다음부터 조회
+     * -> select ... from member m where m.age=? and (m.username>? or m.username=? and m.member_id>?) order by m.username asc nulls first, m.member_id asc limit ?
+     */
+    @Test
+    public void paging_Keyset() {
+        //given
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 10));
+        memberRepository.save(new Member("member3", 10));
+        memberRepository.save(new Member("member4", 10));
+        memberRepository.save(new Member("member5", 10));
+        memberRepository.save(new Member("member6", 20));
+
+        //when
+        KeysetSlice<Member> first = memberRepository.findByAge(10, KeysetCursor.first(3));
+        KeysetSlice<Member> second = memberRepository.findByAge(10, KeysetCursor.fromToken(first.getNextCursor(), 3));
+
+        //then
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("member4", "member5");
+        assertThat(second.isHasNext()).isFalse(); //마지막 페이지
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    /**
+     * 키셋 페이징 : username이 null인 회원은 맨 앞에 정렬되고, null에서 끝난 커서도 다음 페이지로 이어진다
+     */
+    @Test
+    public void paging_KeysetNullUsername() {
+        //given
+        memberRepository.save(new Member(null, 71));
+        memberRepository.save(new Member(null, 71));
+        memberRepository.save(new Member("keysetNull1", 71));
+
+        //when
+        KeysetSlice<Member> first = memberRepository.findByAge(71, KeysetCursor.first(1));
+        KeysetSlice<Member> second = memberRepository.findByAge(71, KeysetCursor.fromToken(first.getNextCursor(), 1));
+        KeysetSlice<Member> third = memberRepository.findByAge(71, KeysetCursor.fromToken(second.getNextCursor(), 1));
+
+        //then
+        assertThat(KeysetCursor.fromToken(first.getNextCursor(), 1).getUsername()).isNull(); //문자열 "null"이 아니다
+        assertThat(first.getContent()).extracting("username").containsExactly((String) null);
+        assertThat(second.getContent()).extracting("username").containsExactly((String) null);
+        assertThat(second.getContent().get(0).getId()).isGreaterThan(first.getContent().get(0).getId());
+        assertThat(third.getContent()).extracting("username").containsExactly("keysetNull1");
+        assertThat(third.isHasNext()).isFalse();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KeysetCursor.fromToken("!invalid", 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KeysetCursor.first(0));
+    }
+
+    /**
+     * 대량 등록 : pooled 시퀀스 + JDBC 배치 INSERT + 주기적인 flush/clear
+     */
+    @Test
+    public void saveAllBatched() {
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("batch" + i, i));
+        }
+
+        //when
+        memberRepository.saveAllBatched(members, 100); //insert 100건씩 배치로 3번 전송
+
+        //then
+        assertThat(memberRepository.countMemberByUsernameStartingWith("batch")).isEqualTo(250);
+        assertThat(em.contains(members.get(0))).isFalse(); //clear() 되어 영속성 컨텍스트가 비워졌다
+    }
+
     @Test
     public void bulkUpdate() {
         //given
@@ -632,6 +842,192 @@ class MemberRepositoryTest {
         assertThat(resultCount).isEqualTo(3);
     }
 
+    /**
+     * 청크 단위 벌크 업데이트 : 청크마다 커밋되므로 테스트 트랜잭션 밖에서 실행한다
+     * 다른 테스트에서 커밋된 회원과 겹치지 않도록 나이를 크게 잡는다
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void bulkUpdateChunked() {
+        //given
+        Member member1 = memberRepository.save(new Member("chunk1", 9010));
+        Member member3 = memberRepository.save(new Member("chunk3", 9020));
+        Member member4 = memberRepository.save(new Member("chunk4", 9021));
+        Member member5 = memberRepository.save(new Member("chunk5", 9040));
+        memberRepository.findById(member5.getId()); //2차 캐시에 적재
+
+        //when
+        List<Integer> chunks = new ArrayList<>();
+        long resultCount = memberRepository.bulkAgePlusChunked(9020, 1, 2, (chunk, updated, totalUpdated, lastId) -> chunks.add(updated));
+
+        //then
+        assertThat(resultCount).isEqualTo(3);
+        assertThat(chunks).containsExactly(2, 1); //청크 크기(2)만큼씩 나누어 수정
+        assertThat(memberRepository.findById(member1.getId()).get().getAge()).isEqualTo(9010);
+        assertThat(memberRepository.findById(member3.getId()).get().getAge()).isEqualTo(9021);
+        assertThat(memberRepository.findById(member4.getId()).get().getAge()).isEqualTo(9022);
+        assertThat(memberRepository.findById(member5.getId()).get().getAge()).isEqualTo(9041); //2차 캐시에서 제거되어 다시 조회
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서는 청크 트랜잭션이 호출한 쪽의 행 락을 기다리고, 1차 캐시 제거로 변경이 사라질 수 있으므로 거부한다
+     */
+    @Test
+    @Rollback
+    public void bulkUpdateChunkedInWriteTransaction() {
+        //given
+        Member member = memberRepository.save(new Member("chunkTx", 9100));
+
+        //when, then
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> memberRepository.bulkAgePlusChunked(9100, 1, 2, (chunk, updated, totalUpdated, lastId) -> { }));
+        assertThat(member.getAge()).isEqualTo(9100);
+    }
+
+    /**
+     * 비동기 조회 : repositoryExecutor에서 별도 트랜잭션으로 실행되므로 커밋된 데이터로 확인한다
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void findAllAsync() {
+        //given
+        Team team = teamRepository.save(new Team("asyncTeam"));
+        memberRepository.save(new Member("async1", 10, team));
+        memberRepository.save(new Member("async2", 20, team));
+
+        //when
+        CompletableFuture<Page<Member>> memberPage = memberRepository.findAllAsync(PageRequest.of(0, 2));
+        CompletableFuture<Page<Team>> teamPage = teamRepository.findAllAsync(PageRequest.of(0, 2));
+        CompletableFuture<List<MemberDto>> memberDtos = memberRepository.findMemberDtoAsync(PageRequest.of(0, 2));
+        Page<Member> parallelCount = memberRepository.findByUsername("async1", PageRequest.of(0, 1), CountMode.PARALLEL);
+        CompletableFuture.allOf(memberPage, teamPage, memberDtos).join();
+
+        //then
+        assertThat(memberPage.join().getContent()).hasSize(2);
+        assertThat(memberPage.join().getContent()).allMatch(member -> member.getTeam() == null || Hibernate.isInitialized(member.getTeam())); //EntityGraph
+        assertThat(teamPage.join().getTotalElements()).isGreaterThanOrEqualTo(1);
+        assertThat(memberDtos.join()).hasSize(2);
+        assertThat(parallelCount.getContent()).hasSize(1);
+        assertThat(parallelCount.getTotalElements()).isEqualTo(1); //count 쿼리는 작업 스레드에서 동시에 실행
+    }
+
+    /**
+     * CountMode.PARALLEL : 요청 스레드들이 커넥션 풀을 모두 쥐고 있어도 count는 전용 풀(page-count)에서 실행되므로 멈추지 않는다
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void parallelCountWithFullPool() throws Exception {
+        //given
+        memberRepository.save(new Member("parallelPool", 10));
+        memberRepository.save(new Member("parallelPool", 20));
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        CyclicBarrier allConnectionsHeld = new CyclicBarrier(poolSize);
+        ExecutorService requests = Executors.newFixedThreadPool(poolSize);
+
+        //when
+        List<Future<Page<Member>>> pages = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            pages.add(requests.submit(() -> readOnlyTransaction.execute(status -> {
+                memberRepository.count(); //트랜잭션의 커넥션 획득
+                try {
+                    allConnectionsHeld.await(10, TimeUnit.SECONDS); //풀의 커넥션을 모두 쥔 상태에서 동시에 조회
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return memberRepository.findByUsername("parallelPool", PageRequest.of(0, 1), CountMode.PARALLEL);
+            })));
+        }
+
+        //then
+        try {
+            for (Future<Page<Member>> page : pages) {
+                //같은 풀에서 count 커넥션을 얻으면 connection-timeout(30초)까지 멈췄다가 실패한다
+                assertThat(page.get(10, TimeUnit.SECONDS).getTotalElements()).isEqualTo(2);
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+    }
+
+    /**
+     * 비동기 작업의 트랜잭션 : readOnly 호출자 -> 작업도 readOnly 트랜잭션, 쓰기 호출자 -> 트랜잭션 없이 실행 (따로 커밋되는 쓰기 트랜잭션을 열지 않는다)
+     */
+    @Test
+    public void readOnlyTransactionTaskDecorator() {
+        //given
+        ReadOnlyTransactionTaskDecorator decorator = new ReadOnlyTransactionTaskDecorator(transactionManager);
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        List<String> fromWrite = new ArrayList<>();
+        List<String> fromReadOnly = new ArrayList<>();
+
+        //when
+        Runnable writeTask = decorator.decorate(() -> fromWrite.add(describeTransaction())); //테스트의 쓰기 트랜잭션 안에서 감싼다
+        Runnable readOnlyTask = readOnlyTransaction.execute(status -> decorator.decorate(() -> fromReadOnly.add(describeTransaction())));
+        CompletableFuture.runAsync(writeTask).join();
+        CompletableFuture.runAsync(readOnlyTask).join();
+
+        //then
+        assertThat(fromWrite).containsExactly("none");
+        assertThat(fromReadOnly).containsExactly("readOnly");
+    }
+
+    private static String describeTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return "none";
+        }
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? "readOnly" : "readWrite";
+    }
+
+    /**
+     * CountMode.PARALLEL : 쓰기 트랜잭션 안에서는 EXACT로 실행 -> 아직 flush하지 않은 변경도 content와 totalElements에 똑같이 반영된다
+     */
+    @Test
+    public void parallelCountInWriteTransaction() {
+        //given
+        memberRepository.save(new Member("parallelWrite", 10));
+        memberRepository.save(new Member("parallelWrite", 20));
+
+        //when
+        Page<Member> page = memberRepository.findByUsername("parallelWrite", PageRequest.of(0, 1), CountMode.PARALLEL);
+
+        //then
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    /**
+     * 낙관적 락 : 조회 후 다른 트랜잭션이 먼저 수정하고 커밋하면 버전이 맞지 않아 충돌 -> 새 트랜잭션에서 다시 실행
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void optimisticRetry() {
+        //given
+        Member member = memberRepository.save(new Member("optimistic1", 10));
+        Counter conflicts = meterRegistry.counter("datajpa.optimistic.conflicts", "operation", "optimisticRetry");
+        double before = conflicts.count();
+        AtomicInteger attempts = new AtomicInteger();
+
+        //when
+        Member result = optimisticRetryExecutor.execute("optimisticRetry", () -> {
+            Member current = em.find(Member.class, member.getId());
+            if (attempts.incrementAndGet() == 1) {
+                CompletableFuture.runAsync(() -> memberRepository.addAgePessimistic(member.getId(), 100)).join(); //다른 트랜잭션이 먼저 수정하고 커밋
+            }
+            current.setAge(current.getAge() + 1);
+            return current;
+        });
+        Member added = memberRepository.addAgeOptimistic(member.getId(), 1);
+
+        //then
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(result.getAge()).isEqualTo(111); //다른 트랜잭션의 수정을 덮어쓰지 않는다
+        assertThat(conflicts.count() - before).isEqualTo(1);
+        assertThat(added.getAge()).isEqualTo(112);
+        assertThat(memberRepository.findById(member.getId()).get().getVersion()).isEqualTo(3);
+    }
+
     //지연 로딩 시, N + 1 문제
     @Test
     public void findMemberLazy() {
@@ -663,6 +1059,37 @@ class MemberRepositoryTest {
         }
     }
 
+    //default_batch_fetch_size 설정으로 팀 프록시들을 in 쿼리 한 번으로 초기화하므로 N + 1이 발생하지 않는다
+    //(배치 페치를 끈 N + 1 감지, @QueryBudget strict 검사는 QueryBudgetTest)
+    @Test
+    public void findMemberLazy_BatchFetch() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 10, teamB));
+
+        em.flush();
+        em.clear();
+
+        //when
+        QueryCount count = QueryCountHolder.start("findMemberLazyBatchFetch");
+        try {
+            List<Member> members = memberRepository.findListByAge(10, PageRequest.of(0, 10));
+            for (Member member : members) {
+                System.out.println("member.team = " + member.getTeam().getName()); //첫 번째 팀 초기화 시 나머지 팀도 함께 조회
+            }
+        } finally {
+            QueryCountHolder.stop();
+        }
+
+        //then
+        assertThat(count.getTotal()).isEqualTo(2); //select Member 1 + select Team ... where team_id in (?, ?) 1
+        assertThat(count.getRepeatedStatements(2)).isEmpty(); //반복된 SQL 없음
+    }
+
     //style 1. fetch join으로 N + 1 문제 해결 (JPA 기본 제공)
     @Test
     public void findMemberFetchJoin() {
@@ -827,6 +1254,72 @@ class MemberRepositoryTest {
         em.flush();
     }
 
+    /**
+     * @ReadOnlyQuery : 쓰기 트랜잭션 안에서는 호출한 쪽의 세션 설정(flush 모드, 읽기 전용)을 그대로 따른다
+     */
+    @Test
+    public void readOnlyQuery() {
+        //given
+        memberRepository.save(new Member("readOnly1", 10));
+        memberRepository.save(new Member("readOnly2", 20)); //flush 하지 않는다
+        Session session = em.unwrap(Session.class);
+
+        //when
+        Page<Member> page = memberRepository.findAll(PageRequest.of(0, 10));
+        List<Member> saved = page.getContent().stream()
+                .filter(member -> member.getUsername().startsWith("readOnly")) //자동 flush 후 조회되므로 결과에 포함된다
+                .collect(Collectors.toList());
+        saved.forEach(member -> member.setUsername("changed-" + member.getUsername()));
+        em.flush();
+
+        //then
+        assertThat(saved).hasSize(2);
+        assertThat(saved).noneMatch(session::isReadOnly);
+        assertThat(session.isDefaultReadOnly()).isFalse();
+        assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.AUTO);
+        assertThat(memberRepository.countMemberByUsernameLike("changed-readOnly%")).isEqualTo(2); //변경 감지로 UPDATE
+    }
+
+    /**
+     * @ReadOnlyQuery : 트랜잭션 밖에서 호출하면 readOnly 트랜잭션으로 실행된다
+     * - 조회 시점(PostLoad 이벤트)에 트랜잭션/세션 상태를 기록해서 확인한다
+     * - readOnly 트랜잭션 -> 복제본 라우팅(ReplicaRoutingDataSource), FlushMode.MANUAL -> 커밋 시 flush X, 읽기 전용 엔티티 -> 스냅샷 X
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void readOnlyQueryOutsideTransaction() {
+        //given
+        memberRepository.save(new Member("readOnlyOutside", 10));
+        List<String> loads = new ArrayList<>();
+        AtomicBoolean recording = new AtomicBoolean(true);
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD,
+                (PostLoadEventListener) event -> {
+                    if (!recording.get() || !(event.getEntity() instanceof Member)) {
+                        return;
+                    }
+                    EntityEntry entry = event.getSession().getPersistenceContext().getEntry(event.getEntity());
+                    loads.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                            + "," + event.getSession().getHibernateFlushMode()
+                            + "," + entry.isReadOnly()
+                            + "," + (entry.getLoadedState() == null));
+                });
+        long flushes = sessionFactory.getStatistics().getFlushCount();
+
+        //when
+        Page<Member> page;
+        try {
+            page = memberRepository.findAll(PageRequest.of(0, 10));
+        } finally {
+            recording.set(false); //리스너는 등록된 채로 남으므로 이후 테스트에서는 기록하지 않는다
+        }
+
+        //then
+        assertThat(page.getContent()).isNotEmpty();
+        assertThat(loads).isNotEmpty().containsOnly("true,MANUAL,true,true"); //readOnly 트랜잭션, MANUAL, 읽기 전용 엔티티, 스냅샷 없음
+        assertThat(sessionFactory.getStatistics().getFlushCount()).isEqualTo(flushes); //커밋할 때도 flush 하지 않는다
+    }
+
     /**
      * JPA Lock
      */
@@ -845,6 +1338,29 @@ class MemberRepositoryTest {
         em.flush();
     }
 
+    /**
+     * 2차 캐시 : 영속성 컨텍스트를 비워도 두 번째 조회부터는 DB가 아닌 2차 캐시(Caffeine)에서 가져온다
+     */
+    @Test
+    public void secondLevelCache() {
+        //given
+        Team teamA = teamRepository.save(new Team("teamA"));
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        teamRepository.findById(teamA.getId()); //DB 조회 후 2차 캐시에 저장
+        em.clear();
+        Team findTeam = teamRepository.findById(teamA.getId()).get(); //2차 캐시 적중, select 쿼리 X
+
+        //then
+        assertThat(findTeam.getName()).isEqualTo("teamA");
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("study.datajpa.entity.Team").getHitCount()).isEqualTo(1);
+    }
+
     /**
      * 사용자 정의 리포지토리 메서드 호출
      */
@@ -858,6 +1374,35 @@ class MemberRepositoryTest {
         List<Member> result = memberQueryRepository.findAllMembers();
     }
 
+    /**
+     * 스트림 조회 : 전체 결과를 List로 올리지 않고 서버 사이드 커서로 한 건씩 처리
+     */
+    @Test
+    public void callCustomStream() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 0, teamA));
+        em.persist(new Member("m2", 0, teamA));
+        em.flush();
+        em.clear();
+
+        //when
+        List<Member> consumed;
+        try (Stream<Member> stream = memberRepository.streamMemberCustom()) {
+            consumed = stream.collect(Collectors.toList());
+        }
+        List<MemberDto> dtos;
+        try (Stream<MemberDto> stream = memberQueryRepository.streamAllMemberDtos()) {
+            dtos = stream.collect(Collectors.toList());
+        }
+
+        //then
+        assertThat(consumed).hasSize(2);
+        assertThat(consumed).noneMatch(em::contains); //소비가 끝난 엔티티는 모두 준영속 상태
+        assertThat(dtos).extracting("teamName").containsOnly("teamA");
+    }
+
     /**
      * Specifications (명세)
      */
@@ -883,6 +1428,97 @@ class MemberRepositoryTest {
         assertThat(result.size()).isEqualTo(1);
     }
 
+    /**
+     * Specification 쿼리 캐시 : 값만 다른 같은 모양의 조건은 캐시된 JPQL을 재사용한다
+     */
+    @Test
+    public void specCached() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 0, teamA));
+        em.persist(new Member("m2", 0, teamA));
+        em.flush();
+        em.clear();
+        Counter hits = meterRegistry.counter("datajpa.specification.cache", "result", "hit");
+        double before = hits.count();
+
+        //when
+        List<Member> result1 = memberRepository.findAllCached(MemberSpec.username("m1").and(MemberSpec.teamName("teamA")));
+        List<Member> result2 = memberRepository.findAllCached(MemberSpec.username("m2").and(MemberSpec.teamName("teamA"))); //같은 모양
+        List<Member> result3 = memberRepository.findAllCached(MemberSpec.username("m2").and(MemberSpec.teamName(null))); //팀 조건 없음 -> 다른 모양
+
+        //then
+        assertThat(result1).extracting("username").containsOnly("m1");
+        assertThat(result2).extracting("username").containsOnly("m2");
+        assertThat(result3).extracting("username").contains("m2");
+        assertThat(hits.count() - before).isGreaterThanOrEqualTo(1);
+        assertThat(MemberSpec.username("m1").and(MemberSpec.teamName("teamA")).getShape())
+                .isEqualTo(MemberSpec.username("m2").and(MemberSpec.teamName("teamB")).getShape());
+    }
+
+    /**
+     * ParameterizedSpecification : 같은 조건에서 JPQL과 Criteria를 만든다, 조인은 별칭으로 구분
+     */
+    @Test
+    public void specJoinsAndLiterals() {
+        //given
+        Team team = new Team("spec?team");
+        em.persist(team);
+        em.persist(new Member("spec?1", 0, team));
+        em.persist(new Member("spec?2", 0));
+        em.flush();
+        em.clear();
+
+        //when
+        ParameterizedSpecification<Member> spec = ParameterizedSpecification.<Member>like("m.username", "spec?%")
+                .and(MemberSpec.teamName("spec?team"))
+                .and(MemberSpec.teamName("spec?team")); //같은 경로, 같은 별칭, 같은 조인 -> 한 번만
+
+        //then
+        assertThat(spec.getShape()).isEqualTo(" join m.team t where ((m.username like :p0 escape '\\') and (t.name = :p1)) and (t.name = :p2)");
+        assertThat(memberRepository.findAll(spec)).extracting("username").containsExactly("spec?1");
+        assertThat(memberRepository.findAllCached(spec)).extracting("username").containsExactly("spec?1");
+        Assertions.assertThrows(IllegalArgumentException.class, //같은 별칭을 left join으로 다시 선언
+                () -> MemberSpec.teamName("spec?team").and(ParameterizedSpecification.<Member>isNull("t.name").join("m.team", "t", JoinType.LEFT)));
+        Assertions.assertThrows(IllegalArgumentException.class, //자기 별칭으로 시작하는 조인
+                () -> ParameterizedSpecification.<Member>isNull("t.name").join("t.parent", "t", JoinType.LEFT));
+        Assertions.assertThrows(IllegalArgumentException.class, //선언하지 않은 부모 별칭
+                () -> ParameterizedSpecification.<Member>isNull("x.name").join("p.team", "x", JoinType.LEFT));
+        Assertions.assertThrows(IllegalArgumentException.class, //조합해도 부모 별칭은 먼저 선언되어 있어야 한다
+                () -> ParameterizedSpecification.<Member>isNull("x.name").join("m.team", "t", JoinType.INNER)
+                        .and(ParameterizedSpecification.<Member>isNull("x.name").join("u.team", "x", JoinType.INNER)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ParameterizedSpecification.<Member>equalIgnoreCase("m.username", null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ParameterizedSpecification.<Member>likeIgnoreCase("m.username", null));
+    }
+
+    /**
+     * 리포지토리 메서드별 미터 : 실행 시간, 반환 행 수, 실행 SQL 수
+     */
+    @Test
+    public void repositoryMetrics() {
+        //given
+        em.persist(new Member("m1", 10));
+        em.persist(new Member("m2", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        List<Member> result = memberRepository.findMemberCustom();
+
+        //then
+        Timer timer = meterRegistry.get("datajpa.repository.invocations")
+                .tags("repository", "MemberRepository", "method", "findMemberCustom", "outcome", "success").timer();
+        DistributionSummary rows = meterRegistry.get("datajpa.repository.rows")
+                .tags("repository", "MemberRepository", "method", "findMemberCustom").summary();
+        DistributionSummary statements = meterRegistry.get("datajpa.repository.statements")
+                .tags("repository", "MemberRepository", "method", "findMemberCustom").summary();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        assertThat(rows.max()).isGreaterThanOrEqualTo(result.size());
+        assertThat(statements.max()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("datajpa.jdbc.statements").tags("kind", "select").timer().count()).isGreaterThanOrEqualTo(1);
+    }
+
     /**
      * Query By Example : Inner Join만 가능하고 Left Outer Join이 안되는 한계
      */
@@ -918,6 +1554,80 @@ class MemberRepositoryTest {
         assertThat(result.get(0).getUsername()).isEqualTo("m1");
     }
 
+    @Test
+    public void queryByExampleOuterJoin() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("qbe_1", 10, teamA));
+        em.persist(new Member("qbe_2", 20, teamA));
+        em.persist(new Member("qbe_3", 30)); //팀 없음
+        em.persist(new Member("qbex1", 40)); //'qbe_' 접두어의 '_'가 와일드카드로 동작하면 조회된다
+
+        em.flush();
+        em.clear();
+
+        //when
+        Member withTeam = new Member("qbe_1");
+        withTeam.setTeam(new Team("teamA"));
+        Example<Member> teamExample = Example.of(withTeam, ExampleMatcher.matching().withIgnorePaths("age"));
+        Example<Member> noTeamExample = Example.of(new Member("qbe_3"), ExampleMatcher.matching().withIgnorePaths("age"));
+
+        //(m.username = ? and j_team.name = ?) or (m.username = ?) : left join이므로 팀이 없는 qbe_3도 조회된다
+        List<Member> batched = memberRepository.findAllByExamples(List.of(teamExample, noTeamExample));
+
+        Example<Member> prefixExample = Example.of(new Member("QBE_"), ExampleMatcher.matching()
+                .withIgnorePaths("age")
+                .withIgnoreCase()
+                .withStringMatcher(ExampleMatcher.StringMatcher.STARTING)); //lower(m.username) like 'qbe\_%'
+        List<Member> prefix = memberRepository.findAllByExample(prefixExample);
+
+        //then
+        assertThat(batched).extracting("username").containsExactlyInAnyOrder("qbe_1", "qbe_3");
+        assertThat(prefix).extracting("username").containsExactlyInAnyOrder("qbe_1", "qbe_2", "qbe_3");
+        assertThat(memberRepository.findAll(noTeamExample)).extracting("username").containsExactly("qbe_3");
+    }
+
+    /**
+     * Example -> ParameterizedSpecification : JPQL(findAllCached)과 Criteria(JpaSpecificationExecutor.findAll) 결과가 같아야 한다
+     */
+    @Test
+    public void queryByExampleCriteriaMatchesJpql() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("qbe_1", 10, teamA));
+        em.persist(new Member("qbe_2", 20, teamA));
+        em.persist(new Member("qbe_3", 30)); //팀 없음
+        em.persist(new Member("qbex1", 40));
+
+        em.flush();
+        em.clear();
+
+        Member withTeam = new Member("qbe_1");
+        withTeam.setTeam(new Team("teamA"));
+        Example<Member> teamExample = Example.of(withTeam, ExampleMatcher.matching().withIgnorePaths("age"));
+        Example<Member> noTeamExample = Example.of(new Member("qbe_3"), ExampleMatcher.matching().withIgnorePaths("age"));
+        Example<Member> prefixExample = Example.of(new Member("QBE_"), ExampleMatcher.matching()
+                .withIgnorePaths("age")
+                .withIgnoreCase()
+                .withStringMatcher(ExampleMatcher.StringMatcher.STARTING));
+
+        //when
+        ParameterizedSpecification<Member> anyOf = exampleSpecificationBuilder.anyOf(List.of(teamExample, noTeamExample));
+        ParameterizedSpecification<Member> prefix = exampleSpecificationBuilder.build(prefixExample);
+
+        //then
+        assertThat(memberRepository.findAll(anyOf)).extracting("username")
+                .containsExactlyInAnyOrderElementsOf(memberRepository.findAllCached(anyOf).stream().map(Member::getUsername).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder("qbe_1", "qbe_3"); //Criteria도 left join -> 팀이 없는 qbe_3 포함
+        assertThat(memberRepository.findAll(prefix)).extracting("username")
+                .containsExactlyInAnyOrderElementsOf(memberRepository.findAllCached(prefix).stream().map(Member::getUsername).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder("qbe_1", "qbe_2", "qbe_3"); //'_'는 이스케이프 -> qbex1 제외
+    }
+
     /**
      * 인터페이스 기반의 Projection 사용
      * -> select m.username from member m where m.username=?
@@ -1054,6 +1764,118 @@ class MemberRepositoryTest {
         System.out.println("result = " + result);
     }
 
+    /**
+     * Closed Projection은 JDK 프록시 대신 생성된 클래스로 만들어진다 (CompiledProjectionFactory)
+     */
+    @Test
+    public void compiledProjection() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member = new Member("compiled1", 10, teamA);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        //when
+        List<NestedClosedProjections> nested = memberRepository.findProjectionsByUsername("compiled1", NestedClosedProjections.class);
+        List<UsernameOnly> open = memberRepository.findProjectionsByUsername("compiled1"); //Open Projection(@Value)은 프록시
+        em.clear(); //위 조회로 영속성 컨텍스트에 올라온 팀을 비운다
+        Member findMember = em.find(Member.class, member.getId());
+        NestedClosedProjections fromEntity = compiledProjectionFactory.createProjection(NestedClosedProjections.class, findMember);
+
+        //then
+        assertThat(Hibernate.isInitialized(findMember.getTeam())).isFalse(); //원본이 엔티티면 getTeam()을 호출할 때 변환한다
+        assertThat(fromEntity.getTeam().getName()).isEqualTo("teamA");
+        assertThat(Hibernate.isInitialized(findMember.getTeam())).isTrue();
+
+        NestedClosedProjections projection = nested.get(0);
+        System.out.println("projection = " + projection);
+        assertThat(Proxy.isProxyClass(projection.getClass())).isFalse();
+        assertThat(Proxy.isProxyClass(projection.getTeam().getClass())).isFalse();
+        assertThat(projection.getUsername()).isEqualTo("compiled1");
+        assertThat(projection.getTeam().getName()).isEqualTo("teamA");
+        assertThat(projection.toString()).contains("compiled1", "teamA");
+
+        NestedClosedProjections same = memberRepository.findProjectionsByUsername("compiled1", NestedClosedProjections.class).get(0);
+        assertThat(same).isNotSameAs(projection).isEqualTo(projection); //속성 값으로 비교
+        assertThat(same.hashCode()).isEqualTo(projection.hashCode());
+        assertThat(fromEntity).isEqualTo(projection); //원본 타입(Tuple, 엔티티)이 달라도 같은 클래스, 같은 값
+        assertThat(Proxy.isProxyClass(open.get(0).getClass())).isTrue();
+        assertThat(open.get(0).getUsernameAndAge()).isEqualTo("compiled1 10");
+
+        //package-private 인터페이스는 생성된 클래스에서 접근할 수 없으므로 JDK 프록시로 처리된다
+        PackagePrivateUsername packagePrivate = compiledProjectionFactory.createProjection(PackagePrivateUsername.class, findMember);
+        assertThat(Proxy.isProxyClass(packagePrivate.getClass())).isTrue();
+        assertThat(packagePrivate.getUsername()).isEqualTo("compiled1");
+    }
+
+    interface PackagePrivateUsername {
+        String getUsername();
+    }
+
+    /**
+     * 중첩 Closed Projection에 필요한 컬럼(username, team.name)만 조회
+     */
+    @Test
+    public void nestedClosedProjectionsPruned() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("pruned1", 10, teamA));
+        em.persist(new Member("pruned1", 20));
+        em.flush();
+        em.clear();
+
+        //when
+        QueryCount count = QueryCountHolder.start("nestedClosedProjectionsPruned");
+        List<NestedClosedProjections> result;
+        try {
+            result = memberRepository.findProjectionsByUsername("pruned1", NestedClosedProjections.class);
+        } finally {
+            QueryCountHolder.stop();
+        }
+
+        //then
+        assertThat(result).extracting(NestedClosedProjections::getUsername).containsOnly("pruned1");
+        assertThat(result).extracting(projection -> projection.getTeam() == null ? null : projection.getTeam().getName())
+                .containsExactlyInAnyOrder("teamA", null); //팀이 없으면 getTeam()은 null
+        assertThat(count.getStatements().keySet())
+                .allMatch(sql -> !sql.contains("created_date") && !sql.contains("updated_date")); //팀의 나머지 컬럼은 조회하지 않는다
+    }
+
+    /**
+     * Projection 조회 조건은 ParameterizedSpecification으로 받는다 : 값은 항상 파라미터로 바인딩된다
+     */
+    @Test
+    public void projectionQueryWithSpecification() {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("projectionSpec1", 10, teamA));
+        em.persist(new Member("projectionSpec1", 20, teamB));
+        em.flush();
+        em.clear();
+
+        //when
+        //조건의 조인 별칭(j0)이 Projection용 조인 별칭과 겹쳐도 된다
+        ParameterizedSpecification<Member> spec = MemberSpec.username("projectionSpec1")
+                .and(ParameterizedSpecification.<Member>equal("j0.name", "teamB").join("m.team", "j0", JoinType.INNER));
+        List<NestedClosedProjections> result = projectionQuerySupport.findAll(Member.class, NestedClosedProjections.class, spec);
+        List<NestedClosedProjections> injected = projectionQuerySupport.findAll(Member.class, NestedClosedProjections.class,
+                MemberSpec.username("projectionSpec1' or '1' = '1"));
+        List<UsernameOnlyDto> dto = memberRepository.findProjectionsByUsername("projectionSpec1", UsernameOnlyDto.class);
+        List<UsernameOnly> open = memberRepository.findProjectionsByUsername("projectionSpec1", UsernameOnly.class);
+
+        //then
+        assertThat(result).extracting(projection -> projection.getTeam().getName()).containsExactly("teamB");
+        assertThat(injected).isEmpty();
+        assertThat(dto).extracting(UsernameOnlyDto::getUsername).containsExactly("projectionSpec1", "projectionSpec1");
+        assertThat(open).extracting(UsernameOnly::getUsernameAndAge).containsExactlyInAnyOrder("projectionSpec1 10", "projectionSpec1 20");
+    }
+
     /**
      * 스프링 데이터 JPA 네이티브 쿼리 + 인터페이스 기반 Projection 활용 : 페이징 처리 가능
      */
@@ -1081,6 +1903,71 @@ class MemberRepositoryTest {
         }
     }
 
+    /**
+     * 네이티브 쿼리 실행기 : 같은 조회를 프록시 없이 컬럼 인덱스로 MemberDto에 바로 매핑, count 생략 페이징과 Stream/forEach
+     */
+    @Test
+    public void nativeQueryExecutor() {
+        //given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member m1 = new Member("m1", 0, teamA);
+        Member m2 = new Member("m2", 0, teamA);
+        Member m3 = new Member("m3", 0, null);
+        em.persist(m1);
+        em.persist(m2);
+        em.persist(m3);
+
+        em.flush();
+        em.clear();
+        long total = memberRepository.count();
+
+        //when
+        QueryCount exactCount = QueryCountHolder.start("findMemberDtoNative.exact");
+        Page<MemberDto> exact;
+        try {
+            exact = memberRepository.findMemberDtoNative(PageRequest.of(0, 2), false);
+        } finally {
+            QueryCountHolder.stop();
+        }
+        QueryCount skippedCount = QueryCountHolder.start("findMemberDtoNative.skipCount");
+        Page<MemberDto> skipped;
+        try {
+            skipped = memberRepository.findMemberDtoNative(PageRequest.of(0, 2), true);
+        } finally {
+            QueryCountHolder.stop();
+        }
+
+        List<MemberDto> copies = new ArrayList<>();
+        List<MemberDto> seen = new ArrayList<>();
+        long rows = memberRepository.forEachMemberDtoNative(100, dto -> {
+            seen.add(dto);
+            copies.add(new MemberDto(dto.getId(), dto.getUsername(), dto.getTeamName())); //다음 행에서 덮어쓰이므로 복사
+        });
+
+        List<MemberDto> streamed;
+        try (Stream<MemberDto> stream = memberRepository.streamMemberDtoNative(100)) {
+            streamed = stream.collect(Collectors.toList());
+        }
+
+        //then
+        assertThat(exact.getContent()).hasSize(2);
+        assertThat(exact.getTotalElements()).isEqualTo(total);
+        assertThat(exactCount.getTotal()).isEqualTo(2); //content + count
+
+        assertThat(skipped.getContent()).isEqualTo(exact.getContent());
+        assertThat(skipped.hasNext()).isTrue();
+        assertThat(skippedCount.getTotal()).isEqualTo(1); //한 건 더 조회, count 쿼리 X
+
+        assertThat(rows).isEqualTo(total);
+        assertThat(seen).allMatch(dto -> dto == seen.get(0)); //DTO 한 개를 재사용
+        assertThat(copies).extracting(MemberDto::getUsername).contains("m1", "m2", "m3");
+        assertThat(copies).filteredOn(dto -> dto.getId().equals(m3.getId()))
+                .extracting(MemberDto::getTeamName).containsExactly((String) null); //팀이 없으면 left join 결과 null
+        assertThat(streamed).containsExactlyInAnyOrderElementsOf(copies);
+    }
+
     /**
      * 하이버네이트 기능을 직접 사용한 동적 네이티브 쿼리
      */
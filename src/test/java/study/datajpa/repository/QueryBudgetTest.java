@@ -0,0 +1,107 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.jdbc.QueryBudget;
+import study.datajpa.jdbc.QueryBudgetExceededException;
+import study.datajpa.jdbc.QueryBudgetVerifier;
+import study.datajpa.jdbc.QueryCount;
+import study.datajpa.jdbc.QueryCountHolder;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 지연 로딩 시, N + 1 문제 자동 감지 : 파라미터만 다른 같은 SQL이 반복되는지 집계
+ * default_batch_fetch_size를 끄고(1) 팀 프록시를 하나씩 초기화해서 실제 N + 1을 만든다
+ * (배치 페치가 켜진 기본 설정의 동작은 MemberRepositoryTest.findMemberLazy_BatchFetch)
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.default_batch_fetch_size=1")
+@Transactional
+class QueryBudgetTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    QueryBudgetVerifier queryBudgetVerifier;
+
+    @Test
+    public void findMemberLazy_QueryCount() {
+        //given
+        saveMembersWithTwoTeams();
+
+        //when
+        QueryCount count = findMembersAndTeams("findMemberLazy");
+
+        //then
+        assertThat(count.getTotal()).isEqualTo(3); //select Member 1 + select Team N(2)
+        assertThat(count.getRepeatedStatements(2)).hasSize(1); //select Team ... where team_id=? 가 2번 반복
+    }
+
+    @Test
+    public void queryBudgetStrict() throws Exception {
+        //given
+        saveMembersWithTwoTeams();
+        QueryBudget strict = getClass().getDeclaredMethod("strictBudget").getAnnotation(QueryBudget.class);
+        QueryBudget lenient = getClass().getDeclaredMethod("lenientBudget").getAnnotation(QueryBudget.class);
+
+        //when
+        QueryCount count = findMembersAndTeams("queryBudgetStrict");
+
+        //then
+        assertThatThrownBy(() -> queryBudgetVerifier.verify(count, strict, true))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageContaining("3번이 허용치 2번을 초과");
+        queryBudgetVerifier.verify(count, strict, false); //컨트롤러(응답 이후)는 strict여도 경고만 남긴다
+        queryBudgetVerifier.verify(count, lenient, true); //strict가 아니면 경고만 남긴다
+    }
+
+    @QueryBudget(value = 2, strict = true)
+    private void strictBudget() {
+    }
+
+    @QueryBudget(2)
+    private void lenientBudget() {
+    }
+
+    private void saveMembersWithTwoTeams() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 10, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    private QueryCount findMembersAndTeams(String name) {
+        QueryCount count = QueryCountHolder.start(name);
+        try {
+            List<Member> members = memberRepository.findListByAge(10, PageRequest.of(0, 10));
+            for (Member member : members) {
+                System.out.println("member.team = " + member.getTeam().getName()); //팀마다 select Team 1번씩
+            }
+        } finally {
+            QueryCountHolder.stop();
+        }
+        return count;
+    }
+}